@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.benchmarks.zuul;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.zuul.filters.pre.FormBodyWrapperFilter;
+import org.springframework.cloud.netflix.zuul.filters.pre.Servlet30WrapperFilter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockMultipartHttpServletRequest;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Throughput of form posts through the filters that wrap the request body: the
+ * {@link Servlet30WrapperFilter} followed by the {@link FormBodyWrapperFilter}, and
+ * reading the re-encoded body as the routing filter would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FormBodyWrapperBenchmark {
+
+	private Servlet30WrapperFilter servlet30Filter = new Servlet30WrapperFilter();
+
+	private FormBodyWrapperFilter formBodyFilter = new FormBodyWrapperFilter();
+
+	private MockHttpServletRequest form;
+
+	private MockMultipartHttpServletRequest multipart;
+
+	private byte[] buffer = new byte[8192];
+
+	@Setup
+	public void setup() {
+		GenericWebApplicationContext context = new GenericWebApplicationContext();
+		this.form = new MockHttpServletRequest("POST", "/users");
+		this.form.setContentType("application/x-www-form-urlencoded");
+		this.form.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE,
+				context);
+		for (int i = 0; i < 10; i++) {
+			this.form.addParameter("field" + i, "value" + i);
+		}
+		this.multipart = new MockMultipartHttpServletRequest();
+		this.multipart.setMethod("POST");
+		this.multipart.setRequestURI("/users");
+		this.multipart.setContentType("multipart/form-data; boundary=benchmark");
+		this.multipart.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE,
+				context);
+		this.multipart.addParameter("name", "value");
+		this.multipart.addFile(new MockMultipartFile("file", "file.bin",
+				"application/octet-stream", new byte[64 * 1024]));
+	}
+
+	@Benchmark
+	public long formPost() throws IOException {
+		return filter(this.form);
+	}
+
+	@Benchmark
+	public long multipartPost() throws IOException {
+		return filter(this.multipart);
+	}
+
+	private long filter(HttpServletRequest request) throws IOException {
+		RequestContext ctx = new RequestContext();
+		RequestContext.testSetCurrentContext(ctx);
+		try {
+			ctx.setRequest(request);
+			this.servlet30Filter.run();
+			if (this.formBodyFilter.shouldFilter()) {
+				this.formBodyFilter.run();
+			}
+			long length = 0;
+			InputStream input = ctx.getRequest().getInputStream();
+			int read;
+			while ((read = input.read(this.buffer)) != -1) {
+				length += read;
+			}
+			return length;
+		}
+		finally {
+			RequestContext.testSetCurrentContext(null);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.benchmarks.zuul;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.zuul.util.SimplePatternMatcher;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Compares the ignored path check in <code>ZuulHandlerMapping</code> before
+ * (<code>toArray</code> plus {@link PatternMatchUtils}) and after precompiling the
+ * patterns. Run with <code>-prof gc</code> to see the allocation rate per lookup, which
+ * should be zero for {@link #compiled()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IgnoredPathsBenchmark {
+
+	@Param({ "/api/customers/42/orders", "/admin/env", "/static/app.js" })
+	public String path;
+
+	private Collection<String> patterns;
+
+	private SimplePatternMatcher matcher;
+
+	@Setup
+	public void setup() {
+		this.patterns = Arrays.asList("/health", "/info", "/admin/*", "*.js", "*.css",
+				"/**/internal/**", "/legacy/*/old/*");
+		this.matcher = new SimplePatternMatcher(this.patterns);
+	}
+
+	@Benchmark
+	public boolean patternMatchUtils() {
+		String[] ignored = this.patterns.toArray(new String[0]);
+		return PatternMatchUtils.simpleMatch(ignored, this.path);
+	}
+
+	@Benchmark
+	public boolean compiled() {
+		return this.matcher.matches(this.path);
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.benchmarks.zuul;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.zuul.filters.post.SendResponseFilter;
+
+/**
+ * Copies a proxied response body of the given size to a discarding output stream,
+ * comparing the original growing-buffer loop with {@link SendResponseFilter}. Run with
+ * <code>-prof gc</code> and divide <code>gc.alloc.rate.norm</code> by the body size to
+ * get the garbage per proxied MB.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResponseStreamingBenchmark {
+
+	@Param({ "1024", "65536", "4194304" })
+	public int size;
+
+	private byte[] body;
+
+	private OutputStream out = new DiscardingOutputStream();
+
+	private StreamingFilter filter = new StreamingFilter();
+
+	@Setup
+	public void setup() {
+		this.body = new byte[this.size];
+	}
+
+	@Benchmark
+	public OutputStream growingBuffer() throws Exception {
+		InputStream in = new ByteArrayInputStream(this.body);
+		byte[] bytes = new byte[1024];
+		int bytesRead = -1;
+		while ((bytesRead = in.read(bytes)) != -1) {
+			this.out.write(bytes, 0, bytesRead);
+			this.out.flush();
+			if (bytesRead == bytes.length) {
+				bytes = new byte[bytes.length * 2];
+			}
+		}
+		return this.out;
+	}
+
+	@Benchmark
+	public OutputStream sendResponseFilter() throws Exception {
+		this.filter.copy(new ByteArrayInputStream(this.body), this.out);
+		return this.out;
+	}
+
+	static class StreamingFilter extends SendResponseFilter {
+
+		void copy(InputStream in, OutputStream out) throws Exception {
+			writeResponse(in, out);
+		}
+
+	}
+
+	static class DiscardingOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+		}
+
+	}
+
+}
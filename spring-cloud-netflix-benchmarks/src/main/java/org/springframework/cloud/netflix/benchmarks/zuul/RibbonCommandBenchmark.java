@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.benchmarks.zuul;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonApacheHttpRequest;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonApacheHttpResponse;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonLoadBalancingHttpClient;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
+import org.springframework.cloud.netflix.zuul.filters.route.support.AbstractRibbonCommand;
+
+import com.netflix.config.DynamicIntProperty;
+import com.netflix.config.DynamicPropertyFactory;
+import com.netflix.hystrix.HystrixCommand.Setter;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.zuul.constants.ZuulConstants;
+
+/**
+ * Cost of creating the Hystrix command for a proxied request: the setter as it was
+ * built for every request before it was cached, the cached setter, and the whole
+ * command construction. Run with <code>-prof gc</code> to compare the allocation per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RibbonCommandBenchmark {
+
+	private static final String SERVICE_ID = "users";
+
+	private RibbonLoadBalancingHttpClient client;
+
+	private RibbonCommandContext context;
+
+	@Setup
+	public void setup() {
+		this.client = new RibbonLoadBalancingHttpClient();
+		this.context = new RibbonCommandContext(SERVICE_ID, "GET", "/users/42", false,
+				null, null, null);
+	}
+
+	@Benchmark
+	public Setter uncachedSetter() {
+		final String name = ZuulConstants.ZUUL_EUREKA + SERVICE_ID
+				+ ".semaphore.maxSemaphores";
+		final DynamicIntProperty value = DynamicPropertyFactory.getInstance()
+				.getIntProperty(name, 100);
+		final HystrixCommandProperties.Setter setter = HystrixCommandProperties.Setter()
+				.withExecutionIsolationStrategy(
+						HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
+				.withExecutionIsolationSemaphoreMaxConcurrentRequests(value.get());
+		return Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("RibbonCommand"))
+				.andCommandKey(HystrixCommandKey.Factory.asKey(SERVICE_ID + "RibbonCommand"))
+				.andCommandPropertiesDefaults(setter);
+	}
+
+	@Benchmark
+	public Setter cachedSetter() {
+		return BenchmarkRibbonCommand.setter(SERVICE_ID);
+	}
+
+	@Benchmark
+	public BenchmarkRibbonCommand command() {
+		return new BenchmarkRibbonCommand(SERVICE_ID, this.client, this.context);
+	}
+
+	public static class BenchmarkRibbonCommand extends
+			AbstractRibbonCommand<RibbonLoadBalancingHttpClient, RibbonApacheHttpRequest, RibbonApacheHttpResponse> {
+
+		BenchmarkRibbonCommand(String commandKey, RibbonLoadBalancingHttpClient client,
+				RibbonCommandContext context) {
+			super(commandKey, client, context);
+		}
+
+		static Setter setter(String commandKey) {
+			return getSetter(commandKey);
+		}
+
+		@Override
+		protected RibbonApacheHttpRequest createRequest() throws Exception {
+			return new RibbonApacheHttpRequest(this.context);
+		}
+
+	}
+
+}
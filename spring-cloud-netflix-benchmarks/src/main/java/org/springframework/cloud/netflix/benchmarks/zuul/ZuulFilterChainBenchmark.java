@@ -0,0 +1,259 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.benchmarks.zuul;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.cloud.netflix.zuul.filters.SimpleRouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
+import org.springframework.cloud.netflix.zuul.filters.post.SendResponseFilter;
+import org.springframework.cloud.netflix.zuul.filters.pre.FormBodyWrapperFilter;
+import org.springframework.cloud.netflix.zuul.filters.pre.PreDecorationFilter;
+import org.springframework.cloud.netflix.zuul.filters.pre.Servlet30WrapperFilter;
+import org.springframework.cloud.netflix.zuul.filters.pre.ServletDetectionFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommand;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandFactory;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonRoutingFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import rx.Observable;
+
+/**
+ * A proxied GET through the real filter chain (servlet detection and wrapping, form
+ * body, pre decoration, ribbon or simple host routing and send response) for route
+ * tables of different sizes, with the requests spread over all the routes. Ribbon
+ * routes get a canned response from an in-process command, and host routes go over
+ * HTTP to an in-process stub server, so both measure the gateway rather than a
+ * backend. {@link #throughput()} reports ops/s and {@link #latency()} the latency
+ * percentiles (including p99). Run with <code>-prof gc</code> and read
+ * <code>gc.alloc.rate.norm</code> for the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZuulFilterChainBenchmark {
+
+	private static final byte[] BODY = "{\"id\":42,\"name\":\"benchmark\"}".getBytes();
+
+	@Param({ "10", "1000", "10000" })
+	public int routes;
+
+	@Param({ "ribbon", "host" })
+	public String routing;
+
+	private List<ZuulFilter> filters = new ArrayList<>();
+
+	private String[] paths;
+
+	private GenericWebApplicationContext webApplicationContext = new GenericWebApplicationContext();
+
+	private HttpServer server;
+
+	private ExecutorService serverExecutor;
+
+	private SimpleHostRoutingFilter simpleHostRoutingFilter;
+
+	@Setup
+	public void setup() throws Exception {
+		String location = null;
+		if ("host".equals(this.routing)) {
+			this.serverExecutor = Executors.newCachedThreadPool();
+			this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			this.server.createContext("/", new StubHandler());
+			this.server.setExecutor(this.serverExecutor);
+			this.server.start();
+			location = "http://localhost:" + this.server.getAddress().getPort();
+		}
+		ZuulProperties properties = new ZuulProperties();
+		this.paths = new String[this.routes];
+		for (int i = 0; i < this.routes; i++) {
+			String id = "service" + i;
+			properties.getRoutes().put(id, new ZuulRoute("/" + id + "/**",
+					location != null ? location : id));
+			this.paths[i] = "/" + id + "/users/42";
+		}
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		helper.setIgnoredHeaders(properties.getIgnoredHeaders());
+		this.simpleHostRoutingFilter = new SimpleHostRoutingFilter(helper, properties);
+		// the client is created in a @PostConstruct
+		Method initialize = ReflectionUtils.findMethod(SimpleHostRoutingFilter.class,
+				"initialize");
+		ReflectionUtils.makeAccessible(initialize);
+		ReflectionUtils.invokeMethod(initialize, this.simpleHostRoutingFilter);
+
+		this.filters.add(new ServletDetectionFilter());
+		this.filters.add(new Servlet30WrapperFilter());
+		this.filters.add(new FormBodyWrapperFilter());
+		this.filters.add(new PreDecorationFilter(
+				new SimpleRouteLocator("/", properties), "/", properties, helper));
+		this.filters.add(new RibbonRoutingFilter(helper, new StubRibbonCommandFactory()));
+		this.filters.add(this.simpleHostRoutingFilter);
+		this.filters.add(new SendResponseFilter());
+
+		MockHttpServletResponse response = proxy(0);
+		if (response.getStatus() != 200
+				|| response.getContentAsByteArray().length != BODY.length) {
+			throw new IllegalStateException("Unexpected response: "
+					+ response.getStatus() + " " + response.getContentAsString());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.simpleHostRoutingFilter.stop();
+		if (this.server != null) {
+			this.server.stop(0);
+			this.serverExecutor.shutdownNow();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public MockHttpServletResponse throughput(RequestCounter counter) throws Exception {
+		return proxy(counter.next());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public MockHttpServletResponse latency(RequestCounter counter) throws Exception {
+		return proxy(counter.next());
+	}
+
+	private MockHttpServletResponse proxy(int count) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				this.paths[count % this.paths.length]);
+		request.addHeader("Accept", "application/json");
+		request.addHeader("User-Agent", "jmh");
+		request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE,
+				this.webApplicationContext);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContext context = RequestContext.getCurrentContext();
+		try {
+			context.setRequest(request);
+			context.setResponse(response);
+			for (ZuulFilter filter : this.filters) {
+				filter.runFilter();
+			}
+			return response;
+		}
+		finally {
+			context.unset();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class RequestCounter {
+
+		private int count;
+
+		int next() {
+			// spread over the routes but not in order
+			this.count += 7919;
+			return this.count & Integer.MAX_VALUE;
+		}
+
+	}
+
+	static class StubHandler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			exchange.getResponseHeaders().add("Content-Type",
+					MediaType.APPLICATION_JSON_VALUE);
+			exchange.sendResponseHeaders(200, BODY.length);
+			OutputStream body = exchange.getResponseBody();
+			body.write(BODY);
+			body.close();
+		}
+
+	}
+
+	static class StubRibbonCommandFactory implements RibbonCommandFactory<StubRibbonCommand> {
+
+		@Override
+		public StubRibbonCommand create(RibbonCommandContext context) {
+			return new StubRibbonCommand();
+		}
+
+	}
+
+	static class StubRibbonCommand implements RibbonCommand {
+
+		@Override
+		public ClientHttpResponse execute() {
+			MockClientHttpResponse response = new MockClientHttpResponse(BODY,
+					HttpStatus.OK);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			response.getHeaders().setContentLength(BODY.length);
+			return response;
+		}
+
+		@Override
+		public Future<ClientHttpResponse> queue() {
+			return observe().toBlocking().toFuture();
+		}
+
+		@Override
+		public Observable<ClientHttpResponse> observe() {
+			return Observable.just(execute());
+		}
+
+	}
+
+}
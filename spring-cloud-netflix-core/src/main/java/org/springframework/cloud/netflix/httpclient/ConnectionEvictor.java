@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Closes expired connections, and connections that have been idle for longer than a
+ * threshold, in all the registered Apache HttpClient connection pools. A single daemon
+ * thread serves every pool, so components that pool connections only need to register
+ * (and unregister) their connection manager under a unique name.
+ */
+@CommonsLog
+@SuppressWarnings("deprecation")
+public class ConnectionEvictor implements DisposableBean {
+
+	private final ConcurrentMap<String, Pool> pools = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Runnable> tasks = new ConcurrentHashMap<>();
+
+	private final long idleTimeoutMillis;
+
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * @param intervalMillis the time between two eviction runs
+	 * @param idleTimeoutMillis the time after which an idle connection is closed (zero or
+	 * less to only close expired connections)
+	 */
+	public ConnectionEvictor(long intervalMillis, long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"ConnectionEvictor-");
+		threadFactory.setDaemon(true);
+		this.executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+		this.executor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				evict();
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Register a connection manager, replacing any other registered under the same name.
+	 */
+	public void register(String name, final HttpClientConnectionManager manager) {
+		this.pools.put(name, new Pool(manager) {
+			@Override
+			void closeExpired() {
+				manager.closeExpiredConnections();
+			}
+
+			@Override
+			void closeIdle(long idleTimeoutMillis) {
+				manager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	/**
+	 * Register a connection manager that uses the legacy (pre 4.3) HttpClient API,
+	 * replacing any other registered under the same name.
+	 */
+	public void register(String name,
+			final org.apache.http.conn.ClientConnectionManager manager) {
+		this.pools.put(name, new Pool(manager) {
+			@Override
+			void closeExpired() {
+				manager.closeExpiredConnections();
+			}
+
+			@Override
+			void closeIdle(long idleTimeoutMillis) {
+				manager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	public void unregister(String name) {
+		this.pools.remove(name);
+	}
+
+	/**
+	 * Register a task to run on the eviction thread after every eviction run, replacing
+	 * any other registered under the same name. Lets the owners of pools do their own
+	 * housekeeping (e.g. close the pools they no longer use) without a thread of their
+	 * own.
+	 */
+	public void registerTask(String name, Runnable task) {
+		this.tasks.put(name, task);
+	}
+
+	public void unregisterTask(String name) {
+		this.tasks.remove(name);
+	}
+
+	/**
+	 * The number of connections closed so far, by pool name. The counts are only
+	 * available for pools that expose their statistics (e.g. the pooling connection
+	 * managers) and are approximate if connections are leased during an eviction run.
+	 */
+	public Map<String, Long> getEvictionCounts() {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (Map.Entry<String, Pool> entry : this.pools.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().evicted.get());
+		}
+		return Collections.unmodifiableMap(counts);
+	}
+
+	/**
+	 * Close expired and idle connections in all registered pools, then run the registered
+	 * tasks.
+	 */
+	public void evict() {
+		for (Map.Entry<String, Pool> entry : this.pools.entrySet()) {
+			Pool pool = entry.getValue();
+			try {
+				int before = pool.available();
+				pool.closeExpired();
+				if (this.idleTimeoutMillis > 0) {
+					pool.closeIdle(this.idleTimeoutMillis);
+				}
+				int evicted = before - pool.available();
+				if (evicted > 0) {
+					pool.evicted.addAndGet(evicted);
+				}
+			}
+			catch (Exception ex) {
+				log.warn("Could not evict connections from pool " + entry.getKey(), ex);
+			}
+		}
+		for (Map.Entry<String, Runnable> entry : this.tasks.entrySet()) {
+			try {
+				entry.getValue().run();
+			}
+			catch (Exception ex) {
+				log.warn("Error running eviction task " + entry.getKey(), ex);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+		this.pools.clear();
+		this.tasks.clear();
+	}
+
+	private abstract static class Pool {
+
+		private final Object manager;
+
+		private final AtomicLong evicted = new AtomicLong();
+
+		Pool(Object manager) {
+			this.manager = manager;
+		}
+
+		abstract void closeExpired();
+
+		abstract void closeIdle(long idleTimeoutMillis);
+
+		int available() {
+			if (this.manager instanceof ConnPoolControl) {
+				return ((ConnPoolControl<?>) this.manager).getTotalStats().getAvailable();
+			}
+			return 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto configuration for a {@link ConnectionEvictor} shared by the pooled HTTP clients.
+ */
+@Configuration
+@ConditionalOnClass(HttpClientConnectionManager.class)
+@ConditionalOnProperty(value = "netflix.httpclient.eviction.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(ConnectionEvictorProperties.class)
+public class ConnectionEvictorAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public ConnectionEvictor connectionEvictor(ConnectionEvictorProperties properties) {
+		return new ConnectionEvictor(properties.getIntervalMillis(),
+				properties.getIdleTimeoutMillis());
+	}
+
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	protected static class ConnectionEvictorMetricsConfiguration {
+
+		@Bean
+		public ConnectionEvictorMetrics connectionEvictorMetrics(
+				ConnectionEvictor evictor) {
+			return new ConnectionEvictorMetrics(evictor);
+		}
+
+	}
+
+}
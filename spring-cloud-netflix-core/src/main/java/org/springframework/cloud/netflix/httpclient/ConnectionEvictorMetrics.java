@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} for the number of connections a {@link ConnectionEvictor} has
+ * closed in each of its pools.
+ */
+public class ConnectionEvictorMetrics implements PublicMetrics {
+
+	private final ConnectionEvictor evictor;
+
+	public ConnectionEvictorMetrics(ConnectionEvictor evictor) {
+		this.evictor = evictor;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		for (Map.Entry<String, Long> entry : this.evictor.getEvictionCounts()
+				.entrySet()) {
+			metrics.add(new Metric<Long>("httpclient." + entry.getKey() + ".evicted",
+					entry.getValue()));
+		}
+		return metrics;
+	}
+
+}
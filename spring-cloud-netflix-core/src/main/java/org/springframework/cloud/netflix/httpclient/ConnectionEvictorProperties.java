@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the {@link ConnectionEvictor}.
+ */
+@Data
+@ConfigurationProperties("netflix.httpclient.eviction")
+public class ConnectionEvictorProperties {
+
+	/**
+	 * Flag to enable a shared evictor for the connection pools of HTTP clients (Zuul
+	 * host routing, Ribbon and the Hystrix dashboard proxy).
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * The time in milliseconds between two runs of the evictor.
+	 */
+	private long intervalMillis = 5000;
+
+	/**
+	 * The time in milliseconds after which an idle pooled connection is closed. Zero or
+	 * less means only expired connections are closed.
+	 */
+	private long idleTimeoutMillis = 30000;
+
+}
@@ -29,6 +29,8 @@ import org.springframework.cloud.client.actuator.HasFeatures;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerAutoConfiguration;
 import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
 import org.springframework.cloud.client.loadbalancer.RestTemplateCustomizer;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonHttpClientPoolMetrics;
+import org.springframework.cloud.netflix.ribbon.okhttp.OkHttpClientPoolMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -71,6 +73,30 @@ public class RibbonAutoConfiguration {
 		return new RibbonLoadBalancerClient(springClientFactory());
 	}
 
+	@Configuration
+	@ConditionalOnClass(name = { "org.springframework.boot.actuate.endpoint.PublicMetrics",
+			"org.apache.http.impl.conn.PoolingHttpClientConnectionManager" })
+	protected static class RibbonHttpClientPoolMetricsConfiguration {
+
+		@Bean
+		public RibbonHttpClientPoolMetrics ribbonHttpClientPoolMetrics() {
+			return new RibbonHttpClientPoolMetrics();
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = { "org.springframework.boot.actuate.endpoint.PublicMetrics",
+			"okhttp3.ConnectionPool" })
+	protected static class OkHttpClientPoolMetricsConfiguration {
+
+		@Bean
+		public OkHttpClientPoolMetrics okHttpClientPoolMetrics() {
+			return new OkHttpClientPoolMetrics();
+		}
+
+	}
+
 	@Configuration
 	@ConditionalOnClass(HttpRequest.class)
 	@ConditionalOnProperty(value = "ribbon.http.client.enabled", matchIfMissing = false)
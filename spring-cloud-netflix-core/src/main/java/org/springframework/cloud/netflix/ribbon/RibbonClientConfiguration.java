@@ -23,8 +23,11 @@ import javax.annotation.PostConstruct;
 import org.apache.http.client.params.ClientPNames;
 import org.apache.http.client.params.CookiePolicy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonLoadBalancingHttpClient;
+import org.springframework.cloud.netflix.ribbon.okhttp.OkHttpLoadBalancingClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -121,6 +124,46 @@ public class RibbonClientConfiguration {
 		return client;
 	}
 
+	/**
+	 * Create a {@link RibbonLoadBalancingHttpClient} (with its own connection pool) for
+	 * the client name if none already exists. It is created lazily so that clients that
+	 * do not need it do not pay for the pool.
+	 *
+	 * @param config the configuration for the client and its connection pool
+	 * @param loadBalancer the load balancer to use
+	 * @return a {@link RibbonLoadBalancingHttpClient} for the client name
+	 */
+	@Bean(destroyMethod = "destroy")
+	@Lazy
+	@ConditionalOnMissingBean
+	public RibbonLoadBalancingHttpClient ribbonLoadBalancingHttpClient(
+			IClientConfig config, ILoadBalancer loadBalancer) {
+		return new RibbonLoadBalancingHttpClient(config, loadBalancer);
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = "okhttp3.OkHttpClient")
+	protected static class OkHttpClientConfiguration {
+
+		/**
+		 * Create an {@link OkHttpLoadBalancingClient} (with its own connection pool) for
+		 * the client name if none already exists. Like the Apache client it is created
+		 * lazily.
+		 *
+		 * @param config the configuration for the client and its connection pool
+		 * @param loadBalancer the load balancer to use
+		 * @return an {@link OkHttpLoadBalancingClient} for the client name
+		 */
+		@Bean(destroyMethod = "destroy")
+		@Lazy
+		@ConditionalOnMissingBean
+		public OkHttpLoadBalancingClient okHttpLoadBalancingClient(IClientConfig config,
+				ILoadBalancer loadBalancer) {
+			return new OkHttpLoadBalancingClient(config, loadBalancer);
+		}
+
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
 	public ILoadBalancer ribbonLoadBalancer(IClientConfig config,
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.ribbon.apache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} for the connection pools of the
+ * {@link RibbonLoadBalancingHttpClient} instances, by service id
+ * (<code>ribbon.&lt;service&gt;.pool.*</code>).
+ */
+public class RibbonHttpClientPoolMetrics implements PublicMetrics {
+
+	private final ConcurrentMap<String, PoolingHttpClientConnectionManager> pools =
+			new ConcurrentHashMap<>();
+
+	public void register(String serviceId,
+			PoolingHttpClientConnectionManager connectionManager) {
+		this.pools.put(serviceId, connectionManager);
+	}
+
+	public void unregister(String serviceId,
+			PoolingHttpClientConnectionManager connectionManager) {
+		this.pools.remove(serviceId, connectionManager);
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		for (Map.Entry<String, PoolingHttpClientConnectionManager> entry : this.pools
+				.entrySet()) {
+			String prefix = "ribbon." + entry.getKey() + ".pool.";
+			PoolStats stats = entry.getValue().getTotalStats();
+			metrics.add(new Metric<Integer>(prefix + "leased", stats.getLeased()));
+			metrics.add(new Metric<Integer>(prefix + "available", stats.getAvailable()));
+			metrics.add(new Metric<Integer>(prefix + "pending", stats.getPending()));
+			metrics.add(new Metric<Integer>(prefix + "max", stats.getMax()));
+		}
+		return metrics;
+	}
+
+}
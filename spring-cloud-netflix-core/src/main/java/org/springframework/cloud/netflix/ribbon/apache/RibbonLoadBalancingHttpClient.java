@@ -17,16 +17,21 @@
 package org.springframework.cloud.netflix.ribbon.apache;
 
 import java.net.URI;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.httpclient.ConnectionEvictor;
 import org.springframework.cloud.netflix.ribbon.support.AbstractLoadBalancingClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
 import com.netflix.loadbalancer.ILoadBalancer;
 
@@ -36,14 +41,129 @@ import com.netflix.loadbalancer.ILoadBalancer;
 public class RibbonLoadBalancingHttpClient
 		extends
 		AbstractLoadBalancingClient<RibbonApacheHttpRequest, RibbonApacheHttpResponse> {
-	private final HttpClient delegate = HttpClientBuilder.create().build();
 
+	private PoolingHttpClientConnectionManager connectionManager;
+
+	private HttpClient delegate;
+
+	private ConnectionEvictor connectionEvictor;
+
+	private RibbonHttpClientPoolMetrics poolMetrics;
+
+	/**
+	 * A client with a connection pool built from the ribbon defaults. Calling
+	 * {@link #initWithNiwsConfig(IClientConfig)} later replaces the pool, so prefer
+	 * {@link #RibbonLoadBalancingHttpClient(IClientConfig, ILoadBalancer)} if the
+	 * configuration is known.
+	 */
 	public RibbonLoadBalancingHttpClient() {
 		super();
+		initDelegate(null);
 	}
 
 	public RibbonLoadBalancingHttpClient(final ILoadBalancer lb) {
 		super(lb);
+		initDelegate(null);
+	}
+
+	/**
+	 * A client whose connection pool is built once from the given configuration.
+	 */
+	public RibbonLoadBalancingHttpClient(IClientConfig clientConfig,
+			final ILoadBalancer lb) {
+		super(lb);
+		initWithNiwsConfig(clientConfig);
+	}
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+		super.initWithNiwsConfig(clientConfig);
+		initDelegate(clientConfig);
+	}
+
+	/**
+	 * Build the pooled delegate client from the ribbon configuration
+	 * (MaxTotalConnections, MaxConnectionsPerHost, PoolKeepAliveTime and
+	 * PoolKeepAliveTimeUnits), using the ribbon defaults if there is none.
+	 */
+	private void initDelegate(IClientConfig config) {
+		int maxTotal = DefaultClientConfigImpl.DEFAULT_MAX_TOTAL_CONNECTIONS;
+		int maxPerHost = DefaultClientConfigImpl.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+		long keepAlive = DefaultClientConfigImpl.DEFAULT_POOL_KEEP_ALIVE_TIME;
+		TimeUnit keepAliveUnit;
+		keepAliveUnit = DefaultClientConfigImpl.DEFAULT_POOL_KEEP_ALIVE_TIME_UNITS;
+		if (config != null) {
+			maxTotal = config.getPropertyAsInteger(
+					CommonClientConfigKey.MaxTotalConnections, maxTotal);
+			maxPerHost = config.getPropertyAsInteger(
+					CommonClientConfigKey.MaxConnectionsPerHost, maxPerHost);
+			keepAlive = Long.parseLong(String.valueOf(config
+					.getProperty(CommonClientConfigKey.PoolKeepAliveTime, keepAlive)));
+			keepAliveUnit = TimeUnit.valueOf(String.valueOf(config.getProperty(
+					CommonClientConfigKey.PoolKeepAliveTimeUnits, keepAliveUnit))
+					.toUpperCase());
+		}
+		PoolingHttpClientConnectionManager connectionManager;
+		connectionManager = new PoolingHttpClientConnectionManager(keepAlive,
+				keepAliveUnit);
+		connectionManager.setMaxTotal(maxTotal);
+		connectionManager.setDefaultMaxPerRoute(maxPerHost);
+		PoolingHttpClientConnectionManager previous = this.connectionManager;
+		this.connectionManager = connectionManager;
+		this.delegate = HttpClientBuilder.create()
+				.setConnectionManager(connectionManager).build();
+		if (previous != null) {
+			// reconfigured after it was registered, so register the new pool instead
+			if (this.connectionEvictor != null) {
+				this.connectionEvictor.register(getPoolName(), connectionManager);
+			}
+			if (this.poolMetrics != null) {
+				this.poolMetrics.unregister(getClientName(), previous);
+				this.poolMetrics.register(getClientName(), connectionManager);
+			}
+			previous.shutdown();
+		}
+	}
+
+	/**
+	 * Register the connection pool of this client with the evictor, so that expired and
+	 * idle connections are closed.
+	 */
+	@Autowired(required = false)
+	public void setConnectionEvictor(ConnectionEvictor connectionEvictor) {
+		this.connectionEvictor = connectionEvictor;
+		connectionEvictor.register(getPoolName(), this.connectionManager);
+	}
+
+	/**
+	 * Register the connection pool of this client so that its statistics are published
+	 * under the client (service) name.
+	 */
+	@Autowired(required = false)
+	public void setPoolMetrics(RibbonHttpClientPoolMetrics poolMetrics) {
+		this.poolMetrics = poolMetrics;
+		poolMetrics.register(getClientName(), this.connectionManager);
+	}
+
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return this.connectionManager;
+	}
+
+	/**
+	 * Release the pooled connections (e.g. when the client's context is closed).
+	 */
+	public void destroy() {
+		if (this.connectionEvictor != null) {
+			this.connectionEvictor.unregister(getPoolName());
+		}
+		if (this.poolMetrics != null) {
+			this.poolMetrics.unregister(getClientName(), this.connectionManager);
+		}
+		this.connectionManager.shutdown();
+	}
+
+	private String getPoolName() {
+		return "ribbon." + getClientName();
 	}
 
 	@Override
@@ -53,14 +173,14 @@ public class RibbonLoadBalancingHttpClient
 		if (configOverride != null) {
 			builder.setConnectTimeout(configOverride.get(
 					CommonClientConfigKey.ConnectTimeout, this.connectTimeout));
-			builder.setConnectionRequestTimeout(configOverride.get(
+			builder.setSocketTimeout(configOverride.get(
 					CommonClientConfigKey.ReadTimeout, this.readTimeout));
 			builder.setRedirectsEnabled(configOverride.get(
 					CommonClientConfigKey.FollowRedirects, this.followRedirects));
 		}
 		else {
 			builder.setConnectTimeout(this.connectTimeout);
-			builder.setConnectionRequestTimeout(this.readTimeout);
+			builder.setSocketTimeout(this.readTimeout);
 			builder.setRedirectsEnabled(this.followRedirects);
 		}
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.ribbon.okhttp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import okhttp3.ConnectionPool;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} for the connection pools of the
+ * {@link OkHttpLoadBalancingClient} instances, by service id
+ * (<code>ribbon.&lt;service&gt;.pool.connections|idle</code>).
+ */
+public class OkHttpClientPoolMetrics implements PublicMetrics {
+
+	private final ConcurrentMap<String, ConnectionPool> pools = new ConcurrentHashMap<>();
+
+	public void register(String serviceId, ConnectionPool connectionPool) {
+		this.pools.put(serviceId, connectionPool);
+	}
+
+	public void unregister(String serviceId, ConnectionPool connectionPool) {
+		this.pools.remove(serviceId, connectionPool);
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		for (Map.Entry<String, ConnectionPool> entry : this.pools.entrySet()) {
+			String prefix = "ribbon." + entry.getKey() + ".pool.";
+			ConnectionPool pool = entry.getValue();
+			metrics.add(new Metric<Integer>(prefix + "connections",
+					pool.connectionCount()));
+			metrics.add(new Metric<Integer>(prefix + "idle",
+					pool.idleConnectionCount()));
+		}
+		return metrics;
+	}
+
+}
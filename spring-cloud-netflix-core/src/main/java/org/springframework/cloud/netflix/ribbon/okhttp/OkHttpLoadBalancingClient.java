@@ -17,16 +17,26 @@
 package org.springframework.cloud.netflix.ribbon.okhttp;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.netflix.ribbon.support.AbstractLoadBalancingClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.netflix.client.config.CommonClientConfigKey;
+import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
+import com.netflix.client.config.IClientConfigKey;
 import com.netflix.loadbalancer.ILoadBalancer;
 
 /**
@@ -34,16 +44,126 @@ import com.netflix.loadbalancer.ILoadBalancer;
  */
 public class OkHttpLoadBalancingClient
 		extends AbstractLoadBalancingClient<OkHttpRibbonRequest, OkHttpRibbonResponse> {
-	private final OkHttpClient delegate = new OkHttpClient();
+
+	/**
+	 * Whether HTTP/2 is offered to the servers (default true). OkHttp only negotiates it
+	 * over TLS, and only if the JVM provides ALPN to it. If false only HTTP/1.1 is used.
+	 */
+	public static final IClientConfigKey<Boolean> HTTP2_ENABLED =
+			new CommonClientConfigKey<Boolean>("Http2Enabled") {
+			};
+
+	/**
+	 * The OkHttp default protocols without the obsolete SPDY/3.
+	 */
+	private static final List<Protocol> HTTP2_PROTOCOLS = Collections
+			.unmodifiableList(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+
+	private static final List<Protocol> HTTP1_PROTOCOLS = Collections
+			.singletonList(Protocol.HTTP_1_1);
+
+	/**
+	 * Upper bound for the number of distinct timeout configurations for which a client
+	 * is cached, in case the overrides are not as stable as they should be.
+	 */
+	private static final int MAX_CACHED_CLIENTS = 32;
+
+	private final ConcurrentMap<ClientKey, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+	private OkHttpClient delegate;
+
+	private OkHttpClientPoolMetrics poolMetrics;
 
 	public OkHttpLoadBalancingClient() {
 		super();
+		initDelegate(null);
 	}
 
 	public OkHttpLoadBalancingClient(final ILoadBalancer lb) {
 		super(lb);
+		initDelegate(null);
+	}
+
+	/**
+	 * A client whose connection pool is built once from the given configuration.
+	 */
+	public OkHttpLoadBalancingClient(IClientConfig clientConfig,
+			final ILoadBalancer lb) {
+		super(lb);
+		initWithNiwsConfig(clientConfig);
+	}
+
+	@Override
+	public void initWithNiwsConfig(IClientConfig clientConfig) {
+		super.initWithNiwsConfig(clientConfig);
+		initDelegate(clientConfig);
+	}
+
+	/**
+	 * Build the delegate client, whose connection pool is shared by all the clients
+	 * derived from it, from the ribbon configuration (MaxTotalConnections,
+	 * PoolKeepAliveTime, PoolKeepAliveTimeUnits and Http2Enabled), using the ribbon
+	 * defaults if there is none. OkHttp does not cap the number of connections of
+	 * synchronous calls, so MaxTotalConnections is the maximum number of idle
+	 * connections kept in the pool, and MaxConnectionsPerHost does not apply.
+	 */
+	private void initDelegate(IClientConfig config) {
+		int maxIdle = DefaultClientConfigImpl.DEFAULT_MAX_TOTAL_CONNECTIONS;
+		long keepAlive = DefaultClientConfigImpl.DEFAULT_POOL_KEEP_ALIVE_TIME;
+		TimeUnit keepAliveUnit;
+		keepAliveUnit = DefaultClientConfigImpl.DEFAULT_POOL_KEEP_ALIVE_TIME_UNITS;
+		boolean http2 = true;
+		if (config != null) {
+			maxIdle = config.getPropertyAsInteger(
+					CommonClientConfigKey.MaxTotalConnections, maxIdle);
+			keepAlive = Long.parseLong(String.valueOf(config
+					.getProperty(CommonClientConfigKey.PoolKeepAliveTime, keepAlive)));
+			keepAliveUnit = TimeUnit.valueOf(String.valueOf(config.getProperty(
+					CommonClientConfigKey.PoolKeepAliveTimeUnits, keepAliveUnit))
+					.toUpperCase());
+			http2 = config.getPropertyAsBoolean(HTTP2_ENABLED, http2);
+		}
+		OkHttpClient.Builder builder = new OkHttpClient.Builder()
+				.connectionPool(new ConnectionPool(maxIdle, keepAlive, keepAliveUnit));
+		builder.protocols(http2 ? HTTP2_PROTOCOLS : HTTP1_PROTOCOLS);
+		OkHttpClient previous = this.delegate;
+		this.delegate = builder.build();
+		this.clients.clear();
+		if (previous != null) {
+			// reconfigured after it was registered, so register the new pool instead
+			if (this.poolMetrics != null) {
+				this.poolMetrics.unregister(getClientName(), previous.connectionPool());
+				this.poolMetrics.register(getClientName(),
+						this.delegate.connectionPool());
+			}
+			previous.connectionPool().evictAll();
+		}
+	}
+
+	/**
+	 * Register the connection pool of this client so that its statistics are published
+	 * under the client (service) name.
+	 */
+	@Autowired(required = false)
+	public void setPoolMetrics(OkHttpClientPoolMetrics poolMetrics) {
+		this.poolMetrics = poolMetrics;
+		poolMetrics.register(getClientName(), this.delegate.connectionPool());
+	}
+
+	public ConnectionPool getConnectionPool() {
+		return this.delegate.connectionPool();
 	}
 
+	/**
+	 * Release the pooled connections (e.g. when the client's context is closed).
+	 */
+	public void destroy() {
+		if (this.poolMetrics != null) {
+			this.poolMetrics.unregister(getClientName(), this.delegate.connectionPool());
+		}
+		this.clients.clear();
+		this.delegate.connectionPool().evictAll();
+	}
 	@Override
 	public OkHttpRibbonResponse execute(OkHttpRibbonRequest ribbonRequest,
 			final IClientConfig configOverride) throws Exception {
@@ -63,28 +183,83 @@ public class OkHttpLoadBalancingClient
 	}
 
 	OkHttpClient getOkHttpClient(IClientConfig configOverride, boolean secure) {
-		OkHttpClient.Builder builder = this.delegate.newBuilder();
+		int connectTimeout = this.connectTimeout;
+		int readTimeout = this.readTimeout;
+		boolean followRedirects = this.followRedirects;
 		if (configOverride != null) {
-			builder.connectTimeout(configOverride.get(
-					CommonClientConfigKey.ConnectTimeout, this.connectTimeout), TimeUnit.MILLISECONDS);
-			builder.readTimeout(configOverride.get(
-					CommonClientConfigKey.ReadTimeout, this.readTimeout), TimeUnit.MILLISECONDS);
-			builder.followRedirects(configOverride.get(
-					CommonClientConfigKey.FollowRedirects, this.followRedirects));
-			if (secure) {
-				builder.followSslRedirects(configOverride.get(
-						CommonClientConfigKey.FollowRedirects, this.followRedirects));
+			connectTimeout = configOverride.get(CommonClientConfigKey.ConnectTimeout,
+					connectTimeout);
+			readTimeout = configOverride.get(CommonClientConfigKey.ReadTimeout,
+					readTimeout);
+			followRedirects = configOverride.get(CommonClientConfigKey.FollowRedirects,
+					followRedirects);
+		}
+		boolean followSslRedirects = secure ? followRedirects
+				: this.delegate.followSslRedirects();
+		ClientKey key = new ClientKey(connectTimeout, readTimeout, followRedirects,
+				followSslRedirects);
+		OkHttpClient client = this.clients.get(key);
+		if (client == null) {
+			client = this.delegate.newBuilder()
+					.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+					.readTimeout(readTimeout, TimeUnit.MILLISECONDS)
+					.followRedirects(followRedirects)
+					.followSslRedirects(followSslRedirects).build();
+			if (this.clients.size() < MAX_CACHED_CLIENTS) {
+				OkHttpClient existing = this.clients.putIfAbsent(key, client);
+				if (existing != null) {
+					client = existing;
+				}
 			}
 		}
-		else {
-			builder.connectTimeout(this.connectTimeout, TimeUnit.MILLISECONDS);
-			builder.readTimeout(this.readTimeout, TimeUnit.MILLISECONDS);
-			builder.followRedirects(this.followRedirects);
-			if (secure) {
-				builder.followSslRedirects(this.followRedirects);
+		return client;
+	}
+
+	/**
+	 * The settings that vary per call, and hence identify a derived client.
+	 */
+	private static final class ClientKey {
+
+		private final int connectTimeout;
+
+		private final int readTimeout;
+
+		private final boolean followRedirects;
+
+		private final boolean followSslRedirects;
+
+		ClientKey(int connectTimeout, int readTimeout, boolean followRedirects,
+				boolean followSslRedirects) {
+			this.connectTimeout = connectTimeout;
+			this.readTimeout = readTimeout;
+			this.followRedirects = followRedirects;
+			this.followSslRedirects = followSslRedirects;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
 			}
+			if (!(obj instanceof ClientKey)) {
+				return false;
+			}
+			ClientKey other = (ClientKey) obj;
+			return this.connectTimeout == other.connectTimeout
+					&& this.readTimeout == other.readTimeout
+					&& this.followRedirects == other.followRedirects
+					&& this.followSslRedirects == other.followSslRedirects;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = this.connectTimeout;
+			result = 31 * result + this.readTimeout;
+			result = 31 * result + (this.followRedirects ? 1 : 0);
+			result = 31 * result + (this.followSslRedirects ? 1 : 0);
+			return result;
 		}
 
-		return builder.build();
 	}
+
 }
@@ -32,6 +32,7 @@ import com.netflix.client.ClientException;
 import com.netflix.client.http.CaseInsensitiveMultiMap;
 import com.netflix.client.http.HttpHeaders;
 
+import okhttp3.Protocol;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 
@@ -80,6 +81,14 @@ public class OkHttpRibbonResponse implements com.netflix.client.http.HttpRespons
 		return this.response.isSuccessful();
 	}
 
+	/**
+	 * The protocol negotiated with the server, e.g. to tell whether the request was
+	 * multiplexed over an HTTP/2 connection.
+	 */
+	public Protocol getProtocol() {
+		return this.response.protocol();
+	}
+
 	@Override
 	public URI getRequestedURI() {
 		return this.uri;
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.netflix.zuul.filters.route.InstrumentedConnectionManager;
+import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
+
+/**
+ * {@link PublicMetrics} for the connection pools of the {@link SimpleHostRoutingFilter}:
+ * occupancy (<code>zuul.host.pool.*</code> for the shared pool and
+ * <code>zuul.routes.&lt;route&gt;.pool.*</code> for routes with their own pool) and the
+ * time spent waiting to lease a connection.
+ */
+public class ConnectionPoolMetrics implements PublicMetrics {
+
+	private final SimpleHostRoutingFilter filter;
+
+	public ConnectionPoolMetrics(SimpleHostRoutingFilter filter) {
+		this.filter = filter;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		PoolingHttpClientConnectionManager shared = this.filter.getConnectionManager();
+		if (shared != null) {
+			addMetrics(metrics, "zuul.host.pool.", shared);
+		}
+		for (Map.Entry<String, PoolingHttpClientConnectionManager> entry : this.filter
+				.getRouteConnectionManagers().entrySet()) {
+			addMetrics(metrics, "zuul.routes." + entry.getKey() + ".pool.",
+					entry.getValue());
+		}
+		return metrics;
+	}
+
+	private void addMetrics(Collection<Metric<?>> metrics, String prefix,
+			PoolingHttpClientConnectionManager connectionManager) {
+		PoolStats stats = connectionManager.getTotalStats();
+		metrics.add(new Metric<Integer>(prefix + "leased", stats.getLeased()));
+		metrics.add(new Metric<Integer>(prefix + "available", stats.getAvailable()));
+		metrics.add(new Metric<Integer>(prefix + "pending", stats.getPending()));
+		metrics.add(new Metric<Integer>(prefix + "max", stats.getMax()));
+		if (connectionManager instanceof InstrumentedConnectionManager) {
+			InstrumentedConnectionManager instrumented;
+			instrumented = (InstrumentedConnectionManager) connectionManager;
+			metrics.add(
+					new Metric<Long>(prefix + "leases", instrumented.getLeaseCount()));
+			metrics.add(new Metric<Long>(prefix + "leaseWaitMillis",
+					instrumented.getLeaseWaitMillis()));
+		}
+	}
+
+}
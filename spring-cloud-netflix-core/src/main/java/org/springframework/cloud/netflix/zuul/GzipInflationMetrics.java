@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.netflix.zuul.filters.post.SendResponseFilter;
+
+/**
+ * {@link PublicMetrics} for the response bytes decompressed by the
+ * {@link SendResponseFilter}, by route id. Routes that show up here are candidates for
+ * <code>zuul.routes.&lt;route&gt;.negotiateGzip=true</code>.
+ */
+public class GzipInflationMetrics implements PublicMetrics {
+
+	private final SendResponseFilter filter;
+
+	public GzipInflationMetrics(SendResponseFilter filter) {
+		this.filter = filter;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		for (Map.Entry<String, Long> entry : this.filter.getInflatedBytes().entrySet()) {
+			metrics.add(new Metric<Long>("zuul.routes." + entry.getKey() + ".inflated",
+					entry.getValue()));
+		}
+		return metrics;
+	}
+
+}
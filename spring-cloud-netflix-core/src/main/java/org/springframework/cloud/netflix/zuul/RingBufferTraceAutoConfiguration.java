@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.TraceRepositoryAutoConfiguration;
+import org.springframework.boot.actuate.trace.TraceRepository;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Auto configuration that replaces the default in-memory {@link TraceRepository}
+ * (which synchronizes every add) with a {@link RingBufferTraceRepository}, if
+ * zuul.ringBufferTraces.enabled is set. The repository is shared by the whole
+ * application, including the actuator web request traces.
+ */
+@Configuration
+@ConditionalOnClass(TraceRepository.class)
+@ConditionalOnProperty("zuul.ringBufferTraces.enabled")
+@AutoConfigureBefore(TraceRepositoryAutoConfiguration.class)
+public class RingBufferTraceAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean(TraceRepository.class)
+	public RingBufferTraceRepository traceRepository(
+			@Value("${zuul.ringBufferTraces.capacity:100}") int capacity) {
+		return new RingBufferTraceRepository(capacity);
+	}
+
+}
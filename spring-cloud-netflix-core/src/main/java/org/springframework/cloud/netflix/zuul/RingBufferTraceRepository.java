@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.boot.actuate.trace.Trace;
+import org.springframework.boot.actuate.trace.TraceRepository;
+
+/**
+ * {@link TraceRepository} that keeps the latest traces in a fixed size ring buffer
+ * without locking, so that tracing proxied requests does not make them contend with
+ * each other. Each trace takes the next slot (overwriting the oldest one), and
+ * {@link #findAll()} returns the traces newest first. Traces added concurrently with
+ * {@link #findAll()} may or may not be included.
+ */
+public class RingBufferTraceRepository implements TraceRepository {
+
+	private final AtomicReferenceArray<Trace> traces;
+
+	private final AtomicLong next = new AtomicLong();
+
+	public RingBufferTraceRepository() {
+		this(100);
+	}
+
+	public RingBufferTraceRepository(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.traces = new AtomicReferenceArray<>(capacity);
+	}
+
+	public int getCapacity() {
+		return this.traces.length();
+	}
+
+	@Override
+	public List<Trace> findAll() {
+		int capacity = this.traces.length();
+		long end = this.next.get();
+		long start = Math.max(0, end - capacity);
+		List<Trace> traces = new ArrayList<>((int) (end - start));
+		for (long index = end - 1; index >= start; index--) {
+			Trace trace = this.traces.get((int) (index % capacity));
+			if (trace != null) {
+				traces.add(trace);
+			}
+		}
+		return traces;
+	}
+
+	@Override
+	public void add(Map<String, Object> traceInfo) {
+		long index = this.next.getAndIncrement();
+		this.traces.set((int) (index % this.traces.length()),
+				new Trace(new Date(), traceInfo));
+	}
+
+}
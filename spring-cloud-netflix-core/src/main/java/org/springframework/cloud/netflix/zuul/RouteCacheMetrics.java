@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.SimpleRouteLocator;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * {@link PublicMetrics} for the cache of matched routes in a {@link SimpleRouteLocator}.
+ */
+public class RouteCacheMetrics implements PublicMetrics {
+
+	private final RouteLocator routeLocator;
+
+	public RouteCacheMetrics(RouteLocator routeLocator) {
+		this.routeLocator = routeLocator;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		if (!(this.routeLocator instanceof SimpleRouteLocator)) {
+			return Collections.emptyList();
+		}
+		SimpleRouteLocator locator = (SimpleRouteLocator) this.routeLocator;
+		CacheStats stats = locator.getRouteCacheStats();
+		if (stats == null) {
+			return Collections.emptyList();
+		}
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Long>("zuul.routes.cache.hits", stats.hitCount()));
+		metrics.add(new Metric<Long>("zuul.routes.cache.misses", stats.missCount()));
+		metrics.add(new Metric<Long>("zuul.routes.cache.evictions",
+				stats.evictionCount()));
+		metrics.add(new Metric<Long>("zuul.routes.cache.size",
+				locator.getRouteCacheSize()));
+		return metrics;
+	}
+
+}
@@ -17,10 +17,18 @@
 package org.springframework.cloud.netflix.zuul;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Servlet;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ErrorController;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.autoconfigure.web.ServerPropertiesAutoConfiguration;
@@ -40,14 +48,17 @@ import org.springframework.cloud.netflix.zuul.filters.pre.FormBodyWrapperFilter;
 import org.springframework.cloud.netflix.zuul.filters.pre.Servlet30WrapperFilter;
 import org.springframework.cloud.netflix.zuul.filters.pre.ServletDetectionFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.SendForwardFilter;
+import org.springframework.cloud.netflix.zuul.web.AsyncZuulServlet;
 import org.springframework.cloud.netflix.zuul.web.ZuulController;
 import org.springframework.cloud.netflix.zuul.web.ZuulHandlerMapping;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.http.ZuulServlet;
@@ -104,7 +115,12 @@ public class ZuulConfiguration {
 	@Bean
 	@ConditionalOnMissingBean(name = "zuulServlet")
 	public ServletRegistrationBean zuulServlet() {
-		ServletRegistrationBean servlet = new ServletRegistrationBean(new ZuulServlet(),
+		Servlet zuulServlet = new ZuulServlet();
+		ZuulProperties.Async async = this.zuulProperties.getAsync();
+		if (async.isEnabled()) {
+			zuulServlet = new AsyncZuulServlet(zuulAsyncExecutor(), async.getTimeout());
+		}
+		ServletRegistrationBean servlet = new ServletRegistrationBean(zuulServlet,
 				this.zuulProperties.getServletPattern());
 		// The whole point of exposing this servlet is to provide a route that doesn't
 		// buffer requests.
@@ -112,6 +128,23 @@ public class ZuulConfiguration {
 		return servlet;
 	}
 
+	/**
+	 * The routing threads of the {@link AsyncZuulServlet}. Deliberately not a
+	 * {@code TaskExecutor}, so it is not picked up as the default {@code @Async}
+	 * executor of the application.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	@ConditionalOnProperty("zuul.async.enabled")
+	public ExecutorService zuulAsyncExecutor() {
+		ZuulProperties.Async async = this.zuulProperties.getAsync();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(async.getMaxThreads(),
+				async.getMaxThreads(), 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(async.getQueueCapacity()),
+				new CustomizableThreadFactory("zuul-async-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	// pre filters
 
 	@Bean
@@ -151,6 +184,30 @@ public class ZuulConfiguration {
 		return new SendForwardFilter();
 	}
 
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	@ConditionalOnProperty("zuul.routeCache.enabled")
+	protected static class RouteCacheMetricsConfiguration {
+
+		@Bean
+		public RouteCacheMetrics zuulRouteCacheMetrics(RouteLocator routeLocator) {
+			return new RouteCacheMetrics(routeLocator);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	protected static class GzipInflationMetricsConfiguration {
+
+		@Bean
+		public GzipInflationMetrics zuulGzipInflationMetrics(
+				SendResponseFilter sendResponseFilter) {
+			return new GzipInflationMetrics(sendResponseFilter);
+		}
+
+	}
+
 	@Configuration
 	protected static class ZuulFilterConfiguration {
 
@@ -170,13 +227,25 @@ public class ZuulConfiguration {
 		@Autowired
 		private ZuulHandlerMapping zuulHandlerMapping;
 
+		@Autowired
+		private ApplicationContext applicationContext;
+
 		private HeartbeatMonitor heartbeatMonitor = new HeartbeatMonitor();
 
 		@Override
 		public void onApplicationEvent(ApplicationEvent event) {
-			if (event instanceof ContextRefreshedEvent
-					|| event instanceof RefreshScopeRefreshedEvent
-					|| event instanceof RoutesRefreshedEvent) {
+			if (event instanceof RoutesRefreshedEvent) {
+				// an explicit reset, the new routes are expected to be served right away
+				this.zuulHandlerMapping.refresh();
+			}
+			else if (event instanceof ContextRefreshedEvent) {
+				// not for the child contexts (e.g. of the Ribbon and Feign clients)
+				if (((ContextRefreshedEvent) event)
+						.getApplicationContext() == this.applicationContext) {
+					this.zuulHandlerMapping.setDirty(true);
+				}
+			}
+			else if (event instanceof RefreshScopeRefreshedEvent) {
 				this.zuulHandlerMapping.setDirty(true);
 			}
 			else if (event instanceof HeartbeatEvent) {
@@ -18,6 +18,7 @@ package org.springframework.cloud.netflix.zuul;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.actuate.trace.TraceRepository;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -35,13 +36,16 @@ import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
 import org.springframework.cloud.netflix.zuul.filters.discovery.DiscoveryClientRouteLocator;
 import org.springframework.cloud.netflix.zuul.filters.discovery.ServiceRouteMapper;
 import org.springframework.cloud.netflix.zuul.filters.discovery.SimpleServiceRouteMapper;
+import org.springframework.cloud.netflix.zuul.filters.post.ResponseCachePostFilter;
 import org.springframework.cloud.netflix.zuul.filters.pre.PreDecorationFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.okhttp.OkHttpRibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.restclient.RestClientRibbonCommandFactory;
+import org.springframework.cloud.netflix.zuul.filters.route.ResponseCacheRouteFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonRoutingFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
 import org.springframework.cloud.netflix.zuul.filters.route.apache.HttpClientRibbonCommandFactory;
+import org.springframework.cloud.netflix.zuul.filters.route.support.ResponseCacheStore;
 import org.springframework.cloud.netflix.zuul.web.ZuulHandlerMapping;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
@@ -140,6 +144,7 @@ public class ZuulProxyConfiguration extends ZuulConfiguration {
 		}
 		helper.setIgnoredHeaders(this.zuulProperties.getIgnoredHeaders());
 		helper.setTraceRequestBody(this.zuulProperties.isTraceRequestBody());
+		helper.setTraceSamplingRate(this.zuulProperties.getTraceSamplingRate());
 		return helper;
 	}
 
@@ -154,6 +159,40 @@ public class ZuulProxyConfiguration extends ZuulConfiguration {
 		return new SimpleServiceRouteMapper();
 	}
 
+	@Configuration
+	@ConditionalOnProperty("zuul.responseCache.enabled")
+	protected static class ResponseCacheConfiguration {
+
+		@Bean
+		public ResponseCacheStore responseCacheStore(ZuulProperties zuulProperties) {
+			return new ResponseCacheStore(zuulProperties.getResponseCache());
+		}
+
+		@Bean
+		public ResponseCacheRouteFilter responseCacheRouteFilter(
+				ResponseCacheStore store) {
+			return new ResponseCacheRouteFilter(store);
+		}
+
+		@Bean
+		public ResponseCachePostFilter responseCachePostFilter(ResponseCacheStore store) {
+			return new ResponseCachePostFilter(store);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(PublicMetrics.class)
+	protected static class ConnectionPoolMetricsConfiguration {
+
+		@Bean
+		public ConnectionPoolMetrics zuulConnectionPoolMetrics(
+				SimpleHostRoutingFilter simpleHostRoutingFilter) {
+			return new ConnectionPoolMetrics(simpleHostRoutingFilter);
+		}
+
+	}
+
 	@Configuration
 	@ConditionalOnClass(Endpoint.class)
 	protected static class RoutesEndpointConfiguration {
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Immutable matcher for an ordered set of Ant-style path patterns. Patterns are indexed
+ * in a segment trie by their literal leading segments (e.g. <code>/foo/bar/**</code> is
+ * stored under <code>foo/bar</code>), and the wildcard remainder is only checked with
+ * the {@link PathMatcher} for patterns whose literal prefix matches the path. Lookups
+ * therefore cost in proportion to the depth of the path rather than the number of
+ * patterns, while preserving first-match-wins semantics in insertion order.
+ *
+ * @param <T> the type of the value associated with each pattern
+ */
+public final class PathPatternTrie<T> {
+
+	private static final String SEPARATOR = "/";
+
+	private final PathMatcher pathMatcher;
+
+	private final Node<T> root = new Node<>();
+
+	private int size;
+
+	private PathPatternTrie(PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+	}
+
+	/**
+	 * Compile the given map of patterns to values, preserving its iteration order.
+	 */
+	public static <T> PathPatternTrie<T> compile(Map<String, T> patterns,
+			PathMatcher pathMatcher) {
+		PathPatternTrie<T> trie = new PathPatternTrie<>(pathMatcher);
+		for (Map.Entry<String, T> entry : patterns.entrySet()) {
+			trie.add(entry.getKey(), entry.getValue());
+		}
+		return trie;
+	}
+
+	/**
+	 * Compile the given patterns, preserving their iteration order. The value of each
+	 * entry is the pattern itself.
+	 */
+	public static PathPatternTrie<String> compile(Iterable<String> patterns,
+			PathMatcher pathMatcher) {
+		PathPatternTrie<String> trie = new PathPatternTrie<>(pathMatcher);
+		for (String pattern : patterns) {
+			trie.add(pattern, pattern);
+		}
+		return trie;
+	}
+
+	private void add(String pattern, T value) {
+		Node<T> node = this.root;
+		for (String segment : tokenize(pattern)) {
+			if (!isLiteral(segment)) {
+				break;
+			}
+			Node<T> child = node.children.get(segment);
+			if (child == null) {
+				child = new Node<>();
+				node.children.put(segment, child);
+			}
+			node = child;
+		}
+		node.entries.add(new Entry<>(this.size++, pattern, value));
+	}
+
+	/**
+	 * @return the value of the first pattern (in insertion order) that matches the
+	 * path, or null if none match
+	 */
+	public T match(String path) {
+		Entry<T> entry = findFirst(path);
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * @return the first pattern (in insertion order) that matches the path, or null if
+	 * none match
+	 */
+	public String matchingPattern(String path) {
+		Entry<T> entry = findFirst(path);
+		return entry != null ? entry.pattern : null;
+	}
+
+	public boolean matches(String path) {
+		return findFirst(path) != null;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	private Entry<T> findFirst(String path) {
+		if (this.size == 0 || path == null) {
+			return null;
+		}
+		Entry<T> best = check(this.root, path, null);
+		Node<T> node = this.root;
+		for (String segment : tokenize(path)) {
+			node = node.children.get(segment);
+			if (node == null) {
+				break;
+			}
+			best = check(node, path, best);
+		}
+		return best;
+	}
+
+	private Entry<T> check(Node<T> node, String path, Entry<T> best) {
+		// entries within a node are already in insertion order
+		for (Entry<T> entry : node.entries) {
+			if (best != null && entry.order >= best.order) {
+				break;
+			}
+			if (this.pathMatcher.match(entry.pattern, path)) {
+				return entry;
+			}
+		}
+		return best;
+	}
+
+	private static String[] tokenize(String path) {
+		return StringUtils.tokenizeToStringArray(path, SEPARATOR, true, true);
+	}
+
+	private static boolean isLiteral(String segment) {
+		return segment.indexOf('*') < 0 && segment.indexOf('?') < 0
+				&& segment.indexOf('{') < 0;
+	}
+
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> children = new HashMap<>();
+
+		private final List<Entry<T>> entries = new ArrayList<>(1);
+
+	}
+
+	private static final class Entry<T> {
+
+		private final int order;
+
+		private final String pattern;
+
+		private final T value;
+
+		private Entry(int order, String pattern, T value) {
+			this.order = order;
+			this.pattern = pattern;
+			this.value = value;
+		}
+
+	}
+
+}
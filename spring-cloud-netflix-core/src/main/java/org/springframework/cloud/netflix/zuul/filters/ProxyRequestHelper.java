@@ -19,6 +19,7 @@ package org.springframework.cloud.netflix.zuul.filters;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Enumeration;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -38,7 +40,6 @@ import org.springframework.cloud.netflix.zuul.util.RequestUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.util.UriTemplate;
 import org.springframework.web.util.UriUtils;
 import org.springframework.web.util.WebUtils;
 
@@ -59,10 +60,55 @@ public class ProxyRequestHelper {
 
 	/**
 	 * Zuul context key for a collection of ignored headers for the current request.
-	 * Pre-filters can set this up as a set of lowercase strings.
+	 * Pre-filters can set this up as a set of lowercase strings. The set may be shared
+	 * by all the requests for a route, so it should not be modified in place: use
+	 * {@link #addIgnoredHeaders(String...)} to add to it.
 	 */
 	public static final String IGNORED_HEADERS = "ignoredHeaders";
 
+	/**
+	 * Zuul context key for a flag saying that a gzipped response should only be requested
+	 * from the downstream service if the client accepts one.
+	 */
+	public static final String NEGOTIATE_GZIP = "negotiateGzip";
+
+	/**
+	 * Zuul context key for a flag saying that the current request should not be traced.
+	 */
+	public static final String TRACE_DISABLED = "traceDisabled";
+
+	/**
+	 * Zuul context key for the raw query string of the request, together with the
+	 * query parameters that were built from it, so that it can be passed through as it
+	 * is if the parameters are not changed.
+	 */
+	private static final String REQUEST_QUERY = ProxyRequestHelper.class.getName()
+			+ ".requestQuery";
+
+	/**
+	 * Lowercase names of the common headers, keyed by their usual spellings, so that
+	 * looking them up does not allocate a new string per request.
+	 */
+	private static final Map<String, String> HEADER_NAMES = new HashMap<>();
+
+	static {
+		for (String name : new String[] { "Accept", "Accept-Charset", "Accept-Encoding",
+				"Accept-Language", "Accept-Ranges", "Age", "Allow", "Authorization",
+				"Cache-Control", "Connection", "Content-Disposition", "Content-Encoding",
+				"Content-Language", "Content-Length", "Content-Location", "Content-Range",
+				"Content-Type", "Cookie", "Date", "ETag", "Expect", "Expires", "Host",
+				"If-Match", "If-Modified-Since", "If-None-Match", "If-Unmodified-Since",
+				"Keep-Alive", "Last-Modified", "Location", "Origin", "Pragma", "Range",
+				"Referer", "Server", "Set-Cookie", "Transfer-Encoding", "User-Agent",
+				"Vary", "Via", "WWW-Authenticate", "X-Application-Context",
+				"X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Port",
+				"X-Forwarded-Prefix", "X-Forwarded-Proto", "X-Requested-With" }) {
+			String lowerCase = name.toLowerCase().intern();
+			HEADER_NAMES.put(name, lowerCase);
+			HEADER_NAMES.put(lowerCase, lowerCase);
+		}
+	}
+
 	private TraceRepository traces;
 
 	private Set<String> ignoredHeaders = new LinkedHashSet<>();
@@ -73,16 +119,22 @@ public class ProxyRequestHelper {
 
 	private boolean traceRequestBody = true;
 
+	private double traceSamplingRate = 1.0;
+
 	public void setWhitelistHosts(Set<String> whitelistHosts) {
 		this.whitelistHosts.addAll(whitelistHosts);
 	}
 
 	public void setSensitiveHeaders(Set<String> sensitiveHeaders) {
-		this.sensitiveHeaders.addAll(sensitiveHeaders);
+		for (String name : sensitiveHeaders) {
+			this.sensitiveHeaders.add(lowerCase(name));
+		}
 	}
 
 	public void setIgnoredHeaders(Set<String> ignoredHeaders) {
-		this.ignoredHeaders.addAll(ignoredHeaders);
+		for (String name : ignoredHeaders) {
+			this.ignoredHeaders.add(lowerCase(name));
+		}
 	}
 
 	public void setTraces(TraceRepository traces) {
@@ -93,6 +145,10 @@ public class ProxyRequestHelper {
 		this.traceRequestBody = traceRequestBody;
 	}
 
+	public void setTraceSamplingRate(double traceSamplingRate) {
+		this.traceSamplingRate = traceSamplingRate;
+	}
+
 	public String buildZuulRequestURI(HttpServletRequest request) {
 		RequestContext context = RequestContext.getCurrentContext();
 		String uri = request.getRequestURI();
@@ -117,28 +173,37 @@ public class ProxyRequestHelper {
 
 	public MultiValueMap<String, String> buildZuulRequestQueryParams(
 			HttpServletRequest request) {
+		RequestContext context = RequestContext.getCurrentContext();
+		// if no filter has set (or even looked at) the parameters they come straight
+		// from the request query string
+		boolean fromRequest = context.getRequestQueryParams() == null;
 		Map<String, List<String>> map = HTTPRequestUtils.getInstance().getQueryParams();
 		MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
 		if (map == null) {
 			return params;
 		}
-		for (String key : map.keySet()) {
-			for (String value : map.get(key)) {
-				params.add(key, value);
+		for (Entry<String, List<String>> entry : map.entrySet()) {
+			for (String value : entry.getValue()) {
+				params.add(entry.getKey(), value);
 			}
 		}
+		if (fromRequest && request.getQueryString() != null) {
+			context.set(REQUEST_QUERY,
+					new RequestQuery(request.getQueryString(), params));
+		}
 		return params;
 	}
 
 	public MultiValueMap<String, String> buildZuulRequestHeaders(
 			HttpServletRequest request) {
 		RequestContext context = RequestContext.getCurrentContext();
+		Collection<?> ignored = getIgnoredHeaders(context);
 		MultiValueMap<String, String> headers = new HttpHeaders();
 		Enumeration<String> headerNames = request.getHeaderNames();
 		if (headerNames != null) {
 			while (headerNames.hasMoreElements()) {
 				String name = headerNames.nextElement();
-				if (isIncludedHeader(name)) {
+				if (isIncludedHeader(name, ignored)) {
 					Enumeration<String> values = request.getHeaders(name);
 					while (values.hasMoreElements()) {
 						String value = values.nextElement();
@@ -147,14 +212,25 @@ public class ProxyRequestHelper {
 				}
 			}
 		}
-		Map<String, String> zuulRequestHeaders = context.getZuulRequestHeaders();
-		for (String header : zuulRequestHeaders.keySet()) {
-			headers.set(header, zuulRequestHeaders.get(header));
+		for (Entry<String, String> header : context.getZuulRequestHeaders().entrySet()) {
+			headers.set(header.getKey(), header.getValue());
+		}
+		if (context.getBoolean(NEGOTIATE_GZIP) && !isGzipAccepted(request)) {
+			// nobody would decompress a gzipped response except us
+			headers.set(HttpHeaders.ACCEPT_ENCODING, "identity");
+		}
+		else {
+			headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
 		}
-		headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
 		return headers;
 	}
 
+	private boolean isGzipAccepted(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null
+				&& HTTPRequestUtils.getInstance().isGzipped(acceptEncoding);
+	}
+
 	public void setResponse(int status, InputStream entity,
 			MultiValueMap<String, String> headers) throws IOException {
 		RequestContext context = RequestContext.getCurrentContext();
@@ -163,62 +239,75 @@ public class ProxyRequestHelper {
 			context.setResponseDataStream(entity);
 		}
 
-		HttpHeaders httpHeaders = new HttpHeaders();
-		for (Entry<String, List<String>> header : headers.entrySet()) {
-			List<String> values = header.getValue();
-			for (String value : values) {
-				httpHeaders.add(header.getKey(), value);
-			}
-		}
+		// a single pass over the headers, they may not be case insensitive here
+		Collection<?> ignored = getIgnoredHeaders(context);
 		boolean isOriginResponseGzipped = false;
-		if (httpHeaders.containsKey(CONTENT_ENCODING)) {
-			List<String> collection = httpHeaders.get(CONTENT_ENCODING);
-			for (String header : collection) {
-				if (HTTPRequestUtils.getInstance().isGzipped(header)) {
-					isOriginResponseGzipped = true;
-					break;
-				}
-			}
-		}
-		context.setResponseGZipped(isOriginResponseGzipped);
-
 		for (Entry<String, List<String>> header : headers.entrySet()) {
 			String name = header.getKey();
+			boolean contentLength = name.equalsIgnoreCase(CONTENT_LENGTH);
+			boolean contentEncoding = name.equalsIgnoreCase(CONTENT_ENCODING);
+			boolean included = isIncludedHeader(name, ignored);
 			for (String value : header.getValue()) {
 				context.addOriginResponseHeader(name, value);
-				if (name.equalsIgnoreCase(CONTENT_LENGTH)) {
+				if (contentLength) {
 					context.setOriginContentLength(value);
 				}
-				if (isIncludedHeader(name)) {
+				if (contentEncoding && !isOriginResponseGzipped
+						&& HTTPRequestUtils.getInstance().isGzipped(value)) {
+					isOriginResponseGzipped = true;
+				}
+				if (included) {
 					context.addZuulResponseHeader(name, value);
 				}
 			}
 		}
+		context.setResponseGZipped(isOriginResponseGzipped);
 	}
 
 	public void addIgnoredHeaders(String... names) {
 		RequestContext ctx = RequestContext.getCurrentContext();
-		if (!ctx.containsKey(IGNORED_HEADERS)) {
-			ctx.set(IGNORED_HEADERS, new HashSet<String>());
-		}
 		@SuppressWarnings("unchecked")
-		Set<String> set = (Set<String>) ctx.get(IGNORED_HEADERS);
+		Set<String> existing = (Set<String>) ctx.get(IGNORED_HEADERS);
+		Set<String> set = existing;
 		for (String name : this.ignoredHeaders) {
-			set.add(name.toLowerCase());
+			set = addIgnoredHeader(set, existing, name);
 		}
 		for (String name : names) {
-			set.add(name.toLowerCase());
+			set = addIgnoredHeader(set, existing, lowerCase(name));
+		}
+		if (set == null) {
+			set = new HashSet<>();
+		}
+		if (set != existing) {
+			ctx.set(IGNORED_HEADERS, set);
 		}
 	}
 
+	/**
+	 * Add the name to the set, copying the existing set first if it does not have it
+	 * already (it might be shared with other requests).
+	 */
+	private Set<String> addIgnoredHeader(Set<String> set, Set<String> existing,
+			String name) {
+		if (set != null && set.contains(name)) {
+			return set;
+		}
+		if (set == null || set == existing) {
+			set = set == null ? new HashSet<String>() : new HashSet<>(set);
+		}
+		set.add(name);
+		return set;
+	}
+
 	public boolean isIncludedHeader(String headerName) {
-		String name = headerName.toLowerCase();
-		RequestContext ctx = RequestContext.getCurrentContext();
-		if (ctx.containsKey(IGNORED_HEADERS)) {
-			Object object = ctx.get(IGNORED_HEADERS);
-			if (object instanceof Collection && ((Collection<?>) object).contains(name)) {
-				return false;
-			}
+		return isIncludedHeader(headerName,
+				getIgnoredHeaders(RequestContext.getCurrentContext()));
+	}
+
+	private boolean isIncludedHeader(String headerName, Collection<?> ignored) {
+		String name = lowerCase(headerName);
+		if (ignored != null && ignored.contains(name)) {
+			return false;
 		}
 		switch (name) {
 		case "host":
@@ -234,11 +323,21 @@ public class ProxyRequestHelper {
 		}
 	}
 
+	private Collection<?> getIgnoredHeaders(RequestContext ctx) {
+		Object object = ctx.get(IGNORED_HEADERS);
+		return object instanceof Collection ? (Collection<?>) object : null;
+	}
+
+	private static String lowerCase(String name) {
+		String lowerCase = HEADER_NAMES.get(name);
+		return lowerCase != null ? lowerCase : name.toLowerCase();
+	}
+
 	public Map<String, Object> debug(String verb, String uri,
 			MultiValueMap<String, String> headers, MultiValueMap<String, String> params,
 			InputStream requestEntity) throws IOException {
 		Map<String, Object> info = new LinkedHashMap<>();
-		if (this.traces != null) {
+		if (this.traces != null && isTraced(RequestContext.getCurrentContext())) {
 			RequestContext context = RequestContext.getCurrentContext();
 			info.put("method", verb);
 			info.put("path", uri);
@@ -250,12 +349,10 @@ public class ProxyRequestHelper {
 			trace.put("request", input);
 			info.put("headers", trace);
 			transformHeaders(headers, input);
-			RequestContext ctx = RequestContext.getCurrentContext();
-			if (shouldDebugBody(ctx)) {
+			// Only sampled requests get this far, so the body is not read otherwise
+			if (requestEntity != null && shouldDebugBody(context)) {
 				// Prevent input stream from being read if it needs to go downstream
-				if (requestEntity != null) {
-					debugRequestEntity(info, ctx.getRequest().getInputStream());
-				}
+				debugRequestEntity(info, context.getRequest().getInputStream());
 			}
 			this.traces.add(info);
 			return info;
@@ -263,6 +360,14 @@ public class ProxyRequestHelper {
 		return info;
 	}
 
+	private boolean isTraced(RequestContext ctx) {
+		if (ctx.getBoolean(TRACE_DISABLED)) {
+			return false;
+		}
+		return this.traceSamplingRate >= 1.0
+				|| ThreadLocalRandom.current().nextDouble() < this.traceSamplingRate;
+	}
+
 	/* for tests */ boolean shouldDebugBody(RequestContext ctx) {
 		HttpServletRequest request = ctx.getRequest();
 		if (!this.traceRequestBody || ctx.isChunkedRequestBody()
@@ -277,9 +382,10 @@ public class ProxyRequestHelper {
 
 	public void appendDebug(Map<String, Object> info, int status,
 			MultiValueMap<String, String> headers) {
-		if (this.traces != null) {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> trace = (Map<String, Object>) info.get("headers");
+		@SuppressWarnings("unchecked")
+		Map<String, Object> trace = (Map<String, Object>) info.get("headers");
+		// null if the request was not traced
+		if (this.traces != null && trace != null) {
 			Map<String, Object> output = new LinkedHashMap<>();
 			trace.put("response", output);
 			transformHeaders(headers, output);
@@ -308,8 +414,8 @@ public class ProxyRequestHelper {
 		int count = new InputStreamReader(inputStream, Charset.forName("UTF-8"))
 				.read(buffer, 0, buffer.length);
 		if (count > 0) {
-			String entity = new String(buffer).substring(0, count);
-			info.put("body", entity.length() < 4096 ? entity : entity + "<truncated>");
+			String entity = new String(buffer, 0, count);
+			info.put("body", count < 4096 ? entity : entity + "<truncated>");
 		}
 	}
 
@@ -317,24 +423,95 @@ public class ProxyRequestHelper {
 		if (params.isEmpty()) {
 			return "";
 		}
+		Object requestQuery = RequestContext.getCurrentContext().get(REQUEST_QUERY);
+		if (requestQuery instanceof RequestQuery
+				&& ((RequestQuery) requestQuery).isUnchanged(params)) {
+			// already encoded by the client
+			return "?" + ((RequestQuery) requestQuery).queryString;
+		}
 		StringBuilder query = new StringBuilder();
-		Map<String, Object> singles = new HashMap<>();
-		for (String param : params.keySet()) {
-			int i = 0;
-			for (String value : params.get(param)) {
-				query.append("&");
-				query.append(param);
+		for (Entry<String, List<String>> param : params.entrySet()) {
+			for (String value : param.getValue()) {
+				query.append(query.length() == 0 ? '?' : '&');
+				appendQueryParam(query, param.getKey());
 				if (!"".equals(value)) {
-					singles.put(param + i, value);
-					query.append("={");
-					query.append(param + i);
-					query.append("}");
+					query.append('=');
+					appendQueryParam(query, value);
 				}
-				i++;
 			}
 		}
+		return query.toString();
+	}
+
+	/**
+	 * Append the query parameter name or value, encoded the same way as a
+	 * {@link org.springframework.web.util.UriTemplate} would, but only allocating if
+	 * there is anything to encode.
+	 */
+	private void appendQueryParam(StringBuilder query, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (!isQueryParamChar(value.charAt(i))) {
+				try {
+					query.append(UriUtils.encodeQueryParam(value, "UTF-8"));
+				}
+				catch (UnsupportedEncodingException e) {
+					throw new IllegalStateException(e);
+				}
+				return;
+			}
+		}
+		query.append(value);
+	}
+
+	private static boolean isQueryParamChar(char c) {
+		if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+			return true;
+		}
+		switch (c) {
+		case '-':
+		case '.':
+		case '_':
+		case '~':
+		case '!':
+		case '$':
+		case '\'':
+		case '(':
+		case ')':
+		case '*':
+		case '+':
+		case ',':
+		case ';':
+		case ':':
+		case '@':
+		case '/':
+		case '?':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static class RequestQuery {
+
+		private final String queryString;
+
+		private final MultiValueMap<String, String> params;
+
+		private final int hash;
+
+		RequestQuery(String queryString, MultiValueMap<String, String> params) {
+			this.queryString = queryString;
+			this.params = params;
+			this.hash = params.hashCode();
+		}
+
+		/**
+		 * Whether these are the parameters built from the query string and they have
+		 * not been changed since.
+		 */
+		boolean isUnchanged(MultiValueMap<String, String> params) {
+			return params == this.params && params.hashCode() == this.hash;
+		}
 
-		UriTemplate template = new UriTemplate("?" + query.toString().substring(1));
-		return template.expand(singles).toString();
 	}
 }
@@ -43,6 +43,27 @@ public class Route {
 		}
 	}
 
+	/**
+	 * A copy of the route that can be modified without affecting the original. The
+	 * ignored headers are unmodifiable, so they are shared.
+	 */
+	public Route(Route route) {
+		this.id = route.id;
+		this.fullPath = route.fullPath;
+		this.path = route.path;
+		this.location = route.location;
+		this.prefix = route.prefix;
+		this.retryable = route.retryable;
+		this.sensitiveHeaders = new LinkedHashSet<>(route.sensitiveHeaders);
+		this.customSensitiveHeaders = route.customSensitiveHeaders;
+		this.negotiateGzip = route.negotiateGzip;
+		this.bulkhead = route.bulkhead;
+		this.trace = route.trace;
+		this.cacheResponses = route.cacheResponses;
+		this.ignoredHeaders = route.ignoredHeaders;
+		this.target = route.target;
+	}
+
 	private String id;
 
 	private String fullPath;
@@ -59,6 +80,28 @@ public class Route {
 
 	private boolean customSensitiveHeaders;
 
+	private boolean negotiateGzip;
+
+	private ZuulProperties.Bulkhead bulkhead;
+
+	private boolean trace = true;
+
+	private boolean cacheResponses;
+
+	/**
+	 * All the headers (lowercase) that are not passed on to or back from this route:
+	 * the global ignored headers and the sensitive headers. Computed once when the
+	 * routes are located and shared by every request for the route, so it is
+	 * unmodifiable. Null if the locator did not compute it.
+	 */
+	private Set<String> ignoredHeaders;
+
+	/**
+	 * The parsed location if it is a physical URL. Null if the locator did not compute
+	 * it.
+	 */
+	private RouteTarget target;
+
 	public boolean isCustomSensitiveHeaders() {
 		return this.customSensitiveHeaders;
 	}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import org.apache.http.HttpHost;
+import org.springframework.util.StringUtils;
+
+/**
+ * The parsed location of a route that forwards to a physical URL, so that the URL does
+ * not have to be parsed again for every request.
+ */
+public class RouteTarget {
+
+	private final URL url;
+
+	private final HttpHost httpHost;
+
+	private final String basePath;
+
+	public RouteTarget(URL url) {
+		this.url = url;
+		this.httpHost = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
+		this.basePath = url.getPath();
+	}
+
+	/**
+	 * The target for the location of a route, or null if it is not an http(s) URL
+	 * (or it is malformed).
+	 */
+	public static RouteTarget forLocation(String location) {
+		if (location == null
+				|| !(location.startsWith("http:") || location.startsWith("https:"))) {
+			return null;
+		}
+		try {
+			return new RouteTarget(new URL(location));
+		}
+		catch (MalformedURLException ex) {
+			return null;
+		}
+	}
+
+	public URL getUrl() {
+		return this.url;
+	}
+
+	public HttpHost getHttpHost() {
+		return this.httpHost;
+	}
+
+	public String getBasePath() {
+		return this.basePath;
+	}
+
+	/**
+	 * The path to request from the target: the base path of the URL followed by the
+	 * given request path, normalized.
+	 */
+	public String getPath(String path) {
+		return normalizePath(this.basePath + path);
+	}
+
+	/**
+	 * Collapse repeated slashes in a single pass over the path, and clean up "." and
+	 * ".." segments with {@link StringUtils#cleanPath(String)} only if there are any.
+	 * The result is the same as <code>cleanPath(path.replaceAll("/{2,}", "/"))</code>,
+	 * but in the usual case the path is returned as it is.
+	 */
+	static String normalizePath(String path) {
+		StringBuilder builder = null;
+		boolean clean = false;
+		int length = path.length();
+		for (int i = 0; i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '/' && i > 0 && path.charAt(i - 1) == '/') {
+				if (builder == null) {
+					builder = new StringBuilder(length).append(path, 0, i);
+				}
+				continue;
+			}
+			if (c == '\\' || (c == '.' && (i == 0 || path.charAt(i - 1) == '/')
+					&& isDotSegment(path, i))) {
+				clean = true;
+			}
+			if (builder != null) {
+				builder.append(c);
+			}
+		}
+		String result = builder == null ? path : builder.toString();
+		return clean ? StringUtils.cleanPath(result) : result;
+	}
+
+	private static boolean isDotSegment(String path, int start) {
+		int end = start + 1;
+		if (end < path.length() && path.charAt(end) == '.') {
+			end++;
+		}
+		return end == path.length() || path.charAt(end) == '/';
+	}
+
+	@Override
+	public String toString() {
+		return this.url.toString();
+	}
+
+}
@@ -18,10 +18,13 @@ package org.springframework.cloud.netflix.zuul.filters;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
@@ -30,6 +33,10 @@ import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 import lombok.extern.apachecommons.CommonsLog;
 
 /**
@@ -49,6 +56,18 @@ public class SimpleRouteLocator implements RouteLocator {
 
 	private AtomicReference<Map<String, ZuulRoute>> routes = new AtomicReference<>();
 
+	private volatile PathPatternTrie<ZuulRoute> routeMatcher;
+
+	private volatile PathPatternTrie<String> ignoredMatcher;
+
+	private Set<String> ignoredPatterns;
+
+	private volatile Map<ZuulRoute, RouteDetails> routeDetails = Collections.emptyMap();
+
+	private volatile Cache<String, Route> routeCache;
+
+	private CacheStats retiredRouteCacheStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
 	public SimpleRouteLocator(String servletPath, ZuulProperties properties) {
 		this.properties = properties;
 		if (servletPath != null && StringUtils.hasText(servletPath)) {
@@ -61,7 +80,7 @@ public class SimpleRouteLocator implements RouteLocator {
 	@Override
 	public List<Route> getRoutes() {
 		if (this.routes.get() == null) {
-			this.routes.set(locateRoutes());
+			setRoutes(locateRoutes());
 		}
 		List<Route> values = new ArrayList<>();
 		for (String url : this.routes.get().keySet()) {
@@ -85,7 +104,7 @@ public class SimpleRouteLocator implements RouteLocator {
 		}
 
 		if (this.routes.get() == null) {
-			this.routes.set(locateRoutes());
+			setRoutes(locateRoutes());
 		}
 
 		if (log.isDebugEnabled()) {
@@ -99,25 +118,54 @@ public class SimpleRouteLocator implements RouteLocator {
 
 		String adjustedPath = adjustPath(path);
 
+		// Read the cache before the matchers: it is published after them on refresh
+		Cache<String, Route> cache = this.routeCache;
+		if (cache != null) {
+			Route cached = cache.getIfPresent(adjustedPath);
+			if (cached != null) {
+				// a copy, since callers are free to modify the route they get
+				return new Route(cached);
+			}
+		}
+
 		ZuulRoute route = null;
 		if (!matchesIgnoredPatterns(adjustedPath)) {
-			for (Entry<String, ZuulRoute> entry : this.routes.get().entrySet()) {
-				String pattern = entry.getKey();
-				log.debug("Matching pattern:" + pattern);
-				if (this.pathMatcher.match(pattern, adjustedPath)) {
-					route = entry.getValue();
-					break;
-				}
-			}
+			route = this.routeMatcher.match(adjustedPath);
 		}
 		if (log.isDebugEnabled()) {
 			log.debug("route matched=" + route);
 		}
 
-		return getRoute(route, adjustedPath);
+		Route matched = getRoute(route, adjustedPath);
+		if (cache != null && matched != null) {
+			cache.put(adjustedPath, new Route(matched));
+		}
+		return matched;
 
 	}
 
+	/**
+	 * Statistics for the cache of matched routes (accumulated across refreshes), or
+	 * null if the cache is not enabled.
+	 */
+	public CacheStats getRouteCacheStats() {
+		synchronized (this) {
+			Cache<String, Route> cache = this.routeCache;
+			if (cache == null) {
+				return null;
+			}
+			return this.retiredRouteCacheStats.plus(cache.stats());
+		}
+	}
+
+	/**
+	 * The number of request paths currently held in the cache of matched routes.
+	 */
+	public long getRouteCacheSize() {
+		Cache<String, Route> cache = this.routeCache;
+		return cache == null ? 0 : cache.size();
+	}
+
 	private Route getRoute(ZuulRoute route, String path) {
 		if (route == null) {
 			return null;
@@ -139,9 +187,37 @@ public class SimpleRouteLocator implements RouteLocator {
 		if (route.getRetryable() != null) {
 			retryable = route.getRetryable();
 		}
-		return new Route(route.getId(), targetPath, route.getLocation(), prefix,
-				retryable,
+		Route matched = new Route(route.getId(), targetPath, route.getLocation(),
+				prefix, retryable,
 				route.isCustomSensitiveHeaders() ? route.getSensitiveHeaders() : null);
+		matched.setNegotiateGzip(
+				route.isNegotiateGzip(this.properties.isNegotiateGzip()));
+		matched.setBulkhead(route.getBulkhead());
+		matched.setTrace(route.isTrace());
+		matched.setCacheResponses(route.isCacheResponses());
+		RouteDetails details = this.routeDetails.get(route);
+		if (details == null) {
+			details = new RouteDetails(route);
+		}
+		matched.setIgnoredHeaders(details.ignoredHeaders);
+		matched.setTarget(details.target);
+		return matched;
+	}
+
+	/**
+	 * The lowercase global ignored headers plus the sensitive headers for the route (its
+	 * own if it has custom ones, otherwise the global ones).
+	 */
+	private Set<String> computeIgnoredHeaders(ZuulRoute route) {
+		Set<String> ignoredHeaders = new LinkedHashSet<>();
+		for (String header : this.properties.getIgnoredHeaders()) {
+			ignoredHeaders.add(header.toLowerCase());
+		}
+		for (String header : route.isCustomSensitiveHeaders()
+				? route.getSensitiveHeaders() : this.properties.getSensitiveHeaders()) {
+			ignoredHeaders.add(header.toLowerCase());
+		}
+		return Collections.unmodifiableSet(ignoredHeaders);
 	}
 
 	/**
@@ -149,7 +225,44 @@ public class SimpleRouteLocator implements RouteLocator {
 	 * this method if they need to implement {@link RefreshableRouteLocator}.
 	 */
 	protected void doRefresh() {
-		this.routes.set(locateRoutes());
+		setRoutes(locateRoutes());
+	}
+
+	/**
+	 * Compile the matchers for the given routes (and the current ignored patterns) and
+	 * then publish them, so that a route lookup never sees a partially built table. The
+	 * cache of matched routes (if enabled) is replaced last, so entries computed from
+	 * the previous routes are never put in the new cache.
+	 */
+	private synchronized void setRoutes(Map<String, ZuulRoute> routes) {
+		Set<String> ignoredPatterns = new LinkedHashSet<>(
+				this.properties.getIgnoredPatterns());
+		if (routes == this.routes.get() && ignoredPatterns.equals(this.ignoredPatterns)) {
+			// Unchanged, so the compiled matchers and the cache are still valid
+			return;
+		}
+		this.ignoredPatterns = ignoredPatterns;
+		Map<ZuulRoute, RouteDetails> routeDetails = new IdentityHashMap<>();
+		for (ZuulRoute route : routes.values()) {
+			routeDetails.put(route, new RouteDetails(route));
+		}
+		this.routeDetails = routeDetails;
+		this.ignoredMatcher = PathPatternTrie.compile(ignoredPatterns, this.pathMatcher);
+		this.routeMatcher = PathPatternTrie.compile(routes, this.pathMatcher);
+		this.routes.set(routes);
+		ZuulProperties.RouteCache cacheProperties = this.properties.getRouteCache();
+		if (cacheProperties.isEnabled()) {
+			Cache<String, Route> cache = CacheBuilder.newBuilder()
+					.maximumSize(cacheProperties.getMaxSize()).recordStats().build();
+			if (this.routeCache != null) {
+				this.retiredRouteCacheStats = this.retiredRouteCacheStats
+						.plus(this.routeCache.stats());
+			}
+			this.routeCache = cache;
+		}
+		else {
+			this.routeCache = null;
+		}
 	}
 
 	/**
@@ -165,12 +278,17 @@ public class SimpleRouteLocator implements RouteLocator {
 	}
 
 	protected boolean matchesIgnoredPatterns(String path) {
-		for (String pattern : this.properties.getIgnoredPatterns()) {
-			log.debug("Matching ignored pattern:" + pattern);
-			if (this.pathMatcher.match(pattern, path)) {
+		PathPatternTrie<String> ignored = this.ignoredMatcher;
+		if (ignored == null) {
+			ignored = PathPatternTrie.compile(this.properties.getIgnoredPatterns(),
+					this.pathMatcher);
+		}
+		String pattern = ignored.match(path);
+		if (pattern != null) {
+			if (log.isDebugEnabled()) {
 				log.debug("Path " + path + " matches ignored pattern " + pattern);
-				return true;
 			}
+			return true;
 		}
 		return false;
 	}
@@ -200,4 +318,21 @@ public class SimpleRouteLocator implements RouteLocator {
 		return adjustedPath;
 	}
 
+	/**
+	 * The parts of a route that only depend on its configuration, computed once when the
+	 * routes are located.
+	 */
+	private class RouteDetails {
+
+		private final Set<String> ignoredHeaders;
+
+		private final RouteTarget target;
+
+		RouteDetails(ZuulRoute route) {
+			this.ignoredHeaders = computeIgnoredHeaders(route);
+			this.target = RouteTarget.forLocation(route.getLocation());
+		}
+
+	}
+
 }
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 
@@ -86,6 +87,22 @@ public class ZuulProperties {
 
 	private Set<String> ignoredPatterns = new LinkedHashSet<>();
 
+	/**
+	 * Flag to say that routes for services from the discovery client can be refreshed
+	 * incrementally, i.e. only the routes of services that were added or removed since
+	 * the last refresh are changed. Any change in the configured routes, prefix or
+	 * ignored services still causes a full refresh.
+	 */
+	private boolean incrementalRefresh = false;
+
+	/**
+	 * Flag to say that the proxy should only ask downstream services for a gzipped
+	 * response if the client accepts one (otherwise it asks for the identity encoding).
+	 * By default gzip is always requested, and decompressed in the proxy for clients
+	 * that do not accept it. Can be overridden per route.
+	 */
+	private boolean negotiateGzip = false;
+
 	/**
 	 * Names of HTTP headers to ignore completely (i.e. leave them out of downstream
 	 * requests and drop them from downstream responses).
@@ -105,11 +122,33 @@ public class ZuulProperties {
 	 */
 	private Host host = new Host();
 
+	/**
+	 * Properties controlling the cache of matched routes by request path.
+	 */
+	private RouteCache routeCache = new RouteCache();
+
+	/**
+	 * Properties controlling the cache of upstream responses for the routes that have
+	 * cacheResponses set.
+	 */
+	private ResponseCache responseCache = new ResponseCache();
+
+	/**
+	 * Properties controlling asynchronous proxying through the Zuul servlet.
+	 */
+	private Async async = new Async();
+
 	/**
 	 * Flag to say that request bodies can be traced.
 	 */
 	private boolean traceRequestBody = true;
 
+	/**
+	 * Fraction of the proxied requests that are traced (between 0 and 1), if there is a
+	 * trace repository. Request bodies are only read for the sampled requests.
+	 */
+	private double traceSamplingRate = 1.0;
+
 	/**
 	 * Flag to say that path elelents past the first semicolon can be dropped.
 	 */
@@ -206,6 +245,40 @@ public class ZuulProperties {
 
 		private boolean customSensitiveHeaders = false;
 
+		/**
+		 * Flag to say that gzip should only be requested from the downstream service if
+		 * the client accepts it. Defaults to the global zuul.negotiateGzip.
+		 */
+		private Boolean negotiateGzip;
+
+		/**
+		 * Connection pool and timeout properties for this route, if it needs its own
+		 * connection pool (only applies to routes with a physical URL). Timeouts that
+		 * are not set default to the global zuul.host.* values.
+		 */
+		private Host host;
+
+		/**
+		 * Lightweight bulkhead and circuit breaker to use instead of Hystrix for this
+		 * route (only applies to routes with a service ID). Requests are wrapped in a
+		 * Hystrix command if not set. Ignored (with a warning) with the RestClient
+		 * (zuul.ribbon.restclient.enabled), which always uses Hystrix.
+		 */
+		private Bulkhead bulkhead;
+
+		/**
+		 * Flag to say that requests for this route can be traced (subject to the global
+		 * zuul.traceSamplingRate).
+		 */
+		private boolean trace = true;
+
+		/**
+		 * Flag to say that cacheable responses to GET requests for this route can be
+		 * kept in the zuul.responseCache and served without calling the downstream
+		 * service while they are fresh (if zuul.responseCache.enabled).
+		 */
+		private boolean cacheResponses = false;
+
 		public ZuulRoute(String id, String path, String serviceId, String url,
 				boolean stripPrefix, Boolean retryable, Set<String> sensitiveHeaders) {
 			this.id = id;
@@ -263,9 +336,37 @@ public class ZuulProperties {
 			return path;
 		}
 
+		/**
+		 * @deprecated ignores the global zuul.negotiateGzip, use
+		 * {@link #getRoute(String, boolean)} instead
+		 */
+		@Deprecated
 		public Route getRoute(String prefix) {
-			return new Route(this.id, this.path, getLocation(), prefix, this.retryable,
+			return getRoute(prefix, false);
+		}
+
+		/**
+		 * @param prefix the prefix of the route
+		 * @param negotiateGzip the global zuul.negotiateGzip, used if the route does not
+		 * set its own
+		 */
+		public Route getRoute(String prefix, boolean negotiateGzip) {
+			Route route = new Route(this.id, this.path, getLocation(), prefix,
+					this.retryable,
 					isCustomSensitiveHeaders() ? this.sensitiveHeaders : null);
+			route.setNegotiateGzip(isNegotiateGzip(negotiateGzip));
+			route.setBulkhead(this.bulkhead);
+			route.setTrace(this.trace);
+			route.setCacheResponses(this.cacheResponses);
+			return route;
+		}
+
+		/**
+		 * Whether to negotiate gzip with the downstream service: the flag of the route if
+		 * set, otherwise the given global default.
+		 */
+		public boolean isNegotiateGzip(boolean defaultValue) {
+			return this.negotiateGzip != null ? this.negotiateGzip : defaultValue;
 		}
 
 		public void setSensitiveHeaders(Set<String> headers) {
@@ -280,7 +381,6 @@ public class ZuulProperties {
 	}
 
 	@Data
-	@AllArgsConstructor
 	@NoArgsConstructor
 	public static class Host {
 		/**
@@ -291,6 +391,139 @@ public class ZuulProperties {
 		 * The maximum number of connections that can be used by a single route.
 		 */
 		private int maxPerRouteConnections = 20;
+		/**
+		 * The socket timeout in milliseconds. Defaults to zuul.host.socket-timeout-millis
+		 * (a dynamic property) if not set.
+		 */
+		private Integer socketTimeoutMillis;
+		/**
+		 * The connect timeout in milliseconds. Defaults to
+		 * zuul.host.connect-timeout-millis (a dynamic property) if not set.
+		 */
+		private Integer connectTimeoutMillis;
+		/**
+		 * The lifetime of a pooled connection, after which it is closed instead of being
+		 * reused. Values of zero or less mean no limit (connections are kept alive as
+		 * long as the server allows).
+		 */
+		private long timeToLive = -1;
+		/**
+		 * The time unit for timeToLive.
+		 */
+		private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+
+		public Host(int maxTotalConnections, int maxPerRouteConnections) {
+			this.maxTotalConnections = maxTotalConnections;
+			this.maxPerRouteConnections = maxPerRouteConnections;
+		}
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class RouteCache {
+		/**
+		 * Flag to enable caching of the route matched for each request path. The cache
+		 * is discarded whenever the routes are refreshed.
+		 */
+		private boolean enabled = false;
+		/**
+		 * The maximum number of request paths to cache routes for. The least recently
+		 * used paths are evicted first.
+		 */
+		private int maxSize = 10000;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class ResponseCache {
+		/**
+		 * Flag to enable the response cache. Responses are only cached for the routes
+		 * that set cacheResponses.
+		 */
+		private boolean enabled = false;
+		/**
+		 * The maximum total size in bytes of the cached response bodies. The least
+		 * recently used responses are evicted first.
+		 */
+		private long maxSize = 10 * 1024 * 1024;
+		/**
+		 * The maximum size in bytes of a single response body. Larger responses are
+		 * streamed to the client without being cached.
+		 */
+		private int maxBodySize = 256 * 1024;
+		/**
+		 * The maximum time in milliseconds that concurrent requests for a response that
+		 * is not cached wait for the first of them to fetch it, before calling the
+		 * downstream service themselves. Keep it well below the read timeout of the
+		 * routes, since a request that waits in vain then makes its own call. Waiting
+		 * requests hold their thread (a routing thread with zuul.async.enabled). Values
+		 * of zero or less disable coalescing.
+		 */
+		private long coalesceTimeoutMillis = 1000;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Async {
+		/**
+		 * Flag to say that requests to the Zuul servlet (see servletPath) should be
+		 * routed on a separate pool of threads, so that the container threads are not
+		 * held while waiting for the downstream service (the routing threads are).
+		 */
+		private boolean enabled = false;
+		/**
+		 * The maximum number of requests that can be routed concurrently in
+		 * asynchronous mode.
+		 */
+		private int maxThreads = 200;
+		/**
+		 * The number of proxied requests that can wait for a routing thread. Requests
+		 * beyond that are routed on the container thread.
+		 */
+		private int queueCapacity = 1000;
+		/**
+		 * Timeout in milliseconds for an asynchronous request, after which the client
+		 * gets a 504 (Gateway Timeout) if the response has not started yet.
+		 */
+		private long timeout = 60000;
+	}
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Bulkhead {
+		/**
+		 * Flag to say that requests on the route should be forwarded without a Hystrix
+		 * command, guarded by this bulkhead instead.
+		 */
+		private boolean enabled = true;
+		/**
+		 * The maximum number of concurrent requests on the route. Requests beyond that
+		 * are rejected.
+		 */
+		private int maxConcurrentRequests = 100;
+		/**
+		 * The minimum number of requests in the rolling window before the circuit can
+		 * open.
+		 */
+		private int requestVolumeThreshold = 20;
+		/**
+		 * The error percentage in the rolling window at or above which the circuit
+		 * opens.
+		 */
+		private int errorThresholdPercentage = 50;
+		/**
+		 * How long in milliseconds requests are rejected after the circuit opened,
+		 * before a trial request is let through.
+		 */
+		private long sleepWindowMillis = 5000;
+		/**
+		 * The length in milliseconds of the window in which errors are counted.
+		 */
+		private long rollingWindowMillis = 10000;
 	}
 
 	public String getServletPattern() {
@@ -16,10 +16,12 @@
 
 package org.springframework.cloud.netflix.zuul.filters.discovery;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
@@ -52,6 +54,20 @@ public class DiscoveryClientRouteLocator extends SimpleRouteLocator
 
 	private ServiceRouteMapper serviceRouteMapper;
 
+	/**
+	 * The service ids from the discovery client when the routes were last located.
+	 */
+	private Set<String> services;
+
+	/**
+	 * Paths (without prefix) of the routes added for discovered services, by service id.
+	 */
+	private Map<String, String> discoveredRoutes = new HashMap<>();
+
+	private String configuration;
+
+	private LinkedHashMap<String, ZuulRoute> previousRoutes;
+
 	public DiscoveryClientRouteLocator(String servletPath, DiscoveryClient discovery,
 			ZuulProperties properties) {
 		super(servletPath, properties);
@@ -87,43 +103,25 @@ public class DiscoveryClientRouteLocator extends SimpleRouteLocator
 	}
 
 	@Override
-	protected LinkedHashMap<String, ZuulRoute> locateRoutes() {
+	protected synchronized LinkedHashMap<String, ZuulRoute> locateRoutes() {
+		if (this.properties.isIncrementalRefresh()) {
+			LinkedHashMap<String, ZuulRoute> values = locateRoutesIncrementally();
+			if (values != null) {
+				return values;
+			}
+		}
+		this.discoveredRoutes.clear();
 		LinkedHashMap<String, ZuulRoute> routesMap = new LinkedHashMap<String, ZuulRoute>();
 		routesMap.putAll(super.locateRoutes());
+		Set<String> services = new LinkedHashSet<>();
 		if (this.discovery != null) {
-			Map<String, ZuulRoute> staticServices = new LinkedHashMap<String, ZuulRoute>();
-			for (ZuulRoute route : routesMap.values()) {
-				String serviceId = route.getServiceId();
-				if (serviceId == null) {
-					serviceId = route.getId();
-				}
-				if (serviceId != null) {
-					staticServices.put(serviceId, route);
-				}
-			}
+			Map<String, ZuulRoute> staticServices = getStaticServices(routesMap);
 			// Add routes for discovery services by default
-			List<String> services = this.discovery.getServices();
+			services.addAll(this.discovery.getServices());
 			String[] ignored = this.properties.getIgnoredServices()
 					.toArray(new String[0]);
 			for (String serviceId : services) {
-				// Ignore specifically ignored services and those that were manually
-				// configured
-				String key = "/" + mapRouteToService(serviceId) + "/**";
-				if (staticServices.containsKey(serviceId)
-						&& staticServices.get(serviceId).getUrl() == null) {
-					// Explicitly configured with no URL, cannot be ignored
-					// all static routes are already in routesMap
-					// Update location using serviceId if location is null
-					ZuulRoute staticRoute = staticServices.get(serviceId);
-					if (!StringUtils.hasText(staticRoute.getLocation())) {
-						staticRoute.setLocation(serviceId);
-					}
-				}
-				if (!PatternMatchUtils.simpleMatch(ignored, serviceId)
-						&& !routesMap.containsKey(key)) {
-					// Not ignored
-					routesMap.put(key, new ZuulRoute(key, serviceId));
-				}
+				addServiceRoute(routesMap, staticServices, ignored, serviceId, false);
 			}
 		}
 		if (routesMap.get(DEFAULT_ROUTE) != null) {
@@ -134,22 +132,139 @@ public class DiscoveryClientRouteLocator extends SimpleRouteLocator
 		}
 		LinkedHashMap<String, ZuulRoute> values = new LinkedHashMap<>();
 		for (Entry<String, ZuulRoute> entry : routesMap.entrySet()) {
-			String path = entry.getKey();
-			// Prepend with slash if not already present.
-			if (!path.startsWith("/")) {
-				path = "/" + path;
-			}
-			if (StringUtils.hasText(this.properties.getPrefix())) {
-				path = this.properties.getPrefix() + path;
-				if (!path.startsWith("/")) {
-					path = "/" + path;
+			values.put(prefixPath(entry.getKey()), entry.getValue());
+		}
+		this.services = services;
+		this.configuration = describeConfiguration();
+		this.previousRoutes = values;
+		return values;
+	}
+
+	/**
+	 * Patch the previously located routes with the services that were added to or
+	 * removed from the discovery client since then. New services are added before the
+	 * default route, after the services that were already known.
+	 * @return the updated routes, or null if a full refresh is needed because there is
+	 * no previous snapshot or the static route configuration has changed
+	 */
+	private LinkedHashMap<String, ZuulRoute> locateRoutesIncrementally() {
+		if (this.previousRoutes == null || this.discovery == null
+				|| !describeConfiguration().equals(this.configuration)) {
+			return null;
+		}
+		Set<String> services = new LinkedHashSet<>(this.discovery.getServices());
+		if (services.equals(this.services)) {
+			// Nothing changed (the previous routes are never modified once returned)
+			return this.previousRoutes;
+		}
+		LinkedHashMap<String, ZuulRoute> values = new LinkedHashMap<>(
+				this.previousRoutes);
+		int removed = 0;
+		for (String serviceId : this.services) {
+			if (!services.contains(serviceId)) {
+				String path = this.discoveredRoutes.remove(serviceId);
+				if (path != null) {
+					values.remove(prefixPath(path));
 				}
+				removed++;
+			}
+		}
+		int added = 0;
+		Map<String, ZuulRoute> staticServices = getStaticServices(
+				super.locateRoutes());
+		String[] ignored = this.properties.getIgnoredServices().toArray(new String[0]);
+		for (String serviceId : services) {
+			if (!this.services.contains(serviceId)
+					&& addServiceRoute(values, staticServices, ignored, serviceId,
+							true)) {
+				added++;
 			}
-			values.put(path, entry.getValue());
 		}
+		String defaultPath = prefixPath(DEFAULT_ROUTE);
+		if (added > 0 && values.containsKey(defaultPath)) {
+			// Move the defaultServiceId back to the end
+			values.put(defaultPath, values.remove(defaultPath));
+		}
+		if (log.isDebugEnabled()) {
+			log.debug("Incremental route refresh: " + added + " routes added, "
+					+ removed + " services removed");
+		}
+		this.services = services;
+		this.configuration = describeConfiguration();
+		this.previousRoutes = values;
 		return values;
 	}
 
+	private Map<String, ZuulRoute> getStaticServices(Map<String, ZuulRoute> routesMap) {
+		Map<String, ZuulRoute> staticServices = new LinkedHashMap<String, ZuulRoute>();
+		for (ZuulRoute route : routesMap.values()) {
+			String serviceId = route.getServiceId();
+			if (serviceId == null) {
+				serviceId = route.getId();
+			}
+			if (serviceId != null) {
+				staticServices.put(serviceId, route);
+			}
+		}
+		return staticServices;
+	}
+
+	/**
+	 * Add a route for a discovered service, unless it is ignored or its path is already
+	 * mapped.
+	 * @param prefixed whether the keys of the routes map already include the prefix
+	 * @return true if a route was added
+	 */
+	private boolean addServiceRoute(Map<String, ZuulRoute> routesMap,
+			Map<String, ZuulRoute> staticServices, String[] ignored, String serviceId,
+			boolean prefixed) {
+		// Ignore specifically ignored services and those that were manually
+		// configured
+		String key = "/" + mapRouteToService(serviceId) + "/**";
+		if (staticServices.containsKey(serviceId)
+				&& staticServices.get(serviceId).getUrl() == null) {
+			// Explicitly configured with no URL, cannot be ignored
+			// all static routes are already in routesMap
+			// Update location using serviceId if location is null
+			ZuulRoute staticRoute = staticServices.get(serviceId);
+			if (!StringUtils.hasText(staticRoute.getLocation())) {
+				staticRoute.setLocation(serviceId);
+			}
+		}
+		String path = prefixed ? prefixPath(key) : key;
+		if (!PatternMatchUtils.simpleMatch(ignored, serviceId)
+				&& !routesMap.containsKey(path)) {
+			// Not ignored
+			routesMap.put(path, new ZuulRoute(key, serviceId));
+			this.discoveredRoutes.put(serviceId, key);
+			return true;
+		}
+		return false;
+	}
+
+	private String prefixPath(String path) {
+		// Prepend with slash if not already present.
+		if (!path.startsWith("/")) {
+			path = "/" + path;
+		}
+		if (StringUtils.hasText(this.properties.getPrefix())) {
+			path = this.properties.getPrefix() + path;
+			if (!path.startsWith("/")) {
+				path = "/" + path;
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * A description of the configuration that discovered routes depend on. If it changes
+	 * the routes can not be refreshed incrementally.
+	 */
+	private String describeConfiguration() {
+		return this.properties.getPrefix() + this.properties.getIgnoredServices()
+				+ this.properties.getRoutes();
+	}
+
 	@Override
 	public void refresh() {
 		doRefresh();
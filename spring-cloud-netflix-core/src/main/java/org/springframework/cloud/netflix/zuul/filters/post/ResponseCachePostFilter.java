@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.post;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.concurrent.CountDownLatch;
+
+import org.springframework.cloud.netflix.zuul.filters.route.ResponseCacheRouteFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.support.CachedResponse;
+import org.springframework.cloud.netflix.zuul.filters.route.support.ResponseCacheStore;
+import org.springframework.util.ReflectionUtils;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Post filter that stores the downstream responses fetched for the
+ * {@link ResponseCacheRouteFilter}, before the {@link SendResponseFilter} writes them.
+ * A 304 for a stale response that was revalidated refreshes the stored response and
+ * the client gets the stored body. Other responses are buffered (up to the maximum body
+ * size, larger ones are streamed on as they are) and stored only if their status and
+ * headers say they can be. Either way the requests that were waiting for this one are
+ * released.
+ */
+public class ResponseCachePostFilter extends ZuulFilter {
+
+	private static final String ERROR_STATUS_CODE = "error.status_code";
+
+	private final ResponseCacheStore store;
+
+	public ResponseCachePostFilter(ResponseCacheStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public String filterType() {
+		return "post";
+	}
+
+	@Override
+	public int filterOrder() {
+		return 900;
+	}
+
+	@Override
+	public boolean shouldFilter() {
+		return RequestContext.getCurrentContext()
+				.containsKey(ResponseCacheRouteFilter.CACHE_KEY);
+	}
+
+	@Override
+	public Object run() {
+		RequestContext ctx = RequestContext.getCurrentContext();
+		String key = (String) ctx.get(ResponseCacheRouteFilter.CACHE_KEY);
+		CountDownLatch leader = (CountDownLatch) ctx
+				.get(ResponseCacheRouteFilter.CACHE_LEADER);
+		try {
+			if (!ctx.containsKey(ERROR_STATUS_CODE)) {
+				store(ctx, key);
+			}
+		}
+		catch (IOException ex) {
+			ReflectionUtils.rethrowRuntimeException(ex);
+		}
+		finally {
+			if (leader != null) {
+				this.store.complete(key, leader);
+				ctx.remove(ResponseCacheRouteFilter.CACHE_LEADER);
+			}
+		}
+		return null;
+	}
+
+	private void store(RequestContext ctx, String key) throws IOException {
+		long now = System.currentTimeMillis();
+		CachedResponse stale = (CachedResponse) ctx
+				.get(ResponseCacheRouteFilter.STALE_RESPONSE);
+		if (stale != null && ctx.getResponseStatusCode() == 304) {
+			CachedResponse refreshed = this.store.revalidate(stale, ctx, now);
+			if (refreshed != null) {
+				this.store.put(key, refreshed);
+			}
+			else {
+				this.store.invalidate(key);
+				refreshed = stale;
+			}
+			InputStream stream = ctx.getResponseDataStream();
+			if (stream != null) {
+				stream.close();
+			}
+			// the client did not ask for a 304, so it gets the stored response
+			ctx.getZuulResponseHeaders().clear();
+			refreshed.writeTo(ctx, false, now);
+			return;
+		}
+		InputStream stream = ctx.getResponseDataStream();
+		if (stream == null) {
+			return;
+		}
+		if (!this.store.isStorable(ctx, now)) {
+			this.store.markNotStorable(key);
+			return;
+		}
+		int maxBodySize = this.store.getProperties().getMaxBodySize();
+		Long length = ctx.getOriginContentLength();
+		if (length != null && length > maxBodySize) {
+			this.store.markNotStorable(key);
+			return;
+		}
+		ByteArrayOutputStream body = new ByteArrayOutputStream(
+				length != null ? length.intValue() : 4096);
+		byte[] buffer = new byte[4096];
+		int read;
+		while (body.size() <= maxBodySize && (read = stream.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+		}
+		if (body.size() > maxBodySize) {
+			// too big to cache, send what was read and then the rest
+			ctx.setResponseDataStream(new SequenceInputStream(
+					new ByteArrayInputStream(body.toByteArray()), stream));
+			this.store.markNotStorable(key);
+			return;
+		}
+		stream.close();
+		byte[] bytes = body.toByteArray();
+		ctx.setResponseDataStream(new ByteArrayInputStream(bytes));
+		CachedResponse entry = this.store.createEntry(ctx, bytes, now);
+		if (entry != null) {
+			this.store.put(key, entry);
+		}
+	}
+
+}
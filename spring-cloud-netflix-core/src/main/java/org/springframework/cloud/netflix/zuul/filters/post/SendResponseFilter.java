@@ -20,13 +20,20 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.util.ReflectionUtils;
 
+import com.google.common.io.CountingInputStream;
 import com.netflix.config.DynamicBooleanProperty;
 import com.netflix.config.DynamicIntProperty;
 import com.netflix.config.DynamicPropertyFactory;
@@ -53,10 +60,33 @@ public class SendResponseFilter extends ZuulFilter {
 			.getInstance()
 			.getIntProperty(ZuulConstants.ZUUL_INITIAL_STREAM_BUFFER_SIZE, 1024);
 
+	/**
+	 * Upper bound for the stream buffer, which starts at the initial size and doubles
+	 * whenever a read fills it.
+	 */
+	private static DynamicIntProperty MAX_STREAM_BUFFER_SIZE = DynamicPropertyFactory
+			.getInstance().getIntProperty("zuul.max-stream-buffer-size", 65536);
+
+	/**
+	 * Number of bytes to write before flushing the response: 0 flushes after every write
+	 * and a negative value only flushes once the whole body has been written.
+	 */
+	private static DynamicIntProperty STREAM_FLUSH_THRESHOLD = DynamicPropertyFactory
+			.getInstance().getIntProperty("zuul.stream-flush-threshold", 0);
+
 	private static DynamicBooleanProperty SET_CONTENT_LENGTH = DynamicPropertyFactory
 			.getInstance()
 			.getBooleanProperty(ZuulConstants.ZUUL_SET_CONTENT_LENGTH, false);
 
+	/**
+	 * Stream buffers are reused by each (pooled) request thread, so copying a response
+	 * body only allocates while the buffer grows to its working size.
+	 */
+	private final ThreadLocal<byte[]> buffers = new ThreadLocal<>();
+
+	private final ConcurrentMap<String, AtomicLong> inflatedBytes =
+			new ConcurrentHashMap<>();
+
 	@Override
 	public String filterType() {
 		return "post";
@@ -118,6 +148,7 @@ public class SendResponseFilter extends ZuulFilter {
 			}
 			is = context.getResponseDataStream();
 			InputStream inputStream = is;
+			CountingInputStream inflated = null;
 			if (is != null) {
 				if (context.sendZuulResponse()) {
 					// if origin response is gzipped, and client has not requested gzip,
@@ -130,7 +161,9 @@ public class SendResponseFilter extends ZuulFilter {
 						final Long len = context.getOriginContentLength();
 						if (len == null || len > 0) {
 							try {
-								inputStream = new GZIPInputStream(is);
+								inflated = new CountingInputStream(
+										new GZIPInputStream(is));
+								inputStream = inflated;
 							}
 							catch (java.util.zip.ZipException ex) {
 								log.debug(
@@ -150,6 +183,9 @@ public class SendResponseFilter extends ZuulFilter {
 						servletResponse.setHeader(ZuulHeaders.CONTENT_ENCODING, "gzip");
 					}
 					writeResponse(inputStream, outStream);
+					if (inflated != null) {
+						recordInflatedBytes(context, inflated.getCount());
+					}
 				}
 			}
 		}
@@ -166,22 +202,69 @@ public class SendResponseFilter extends ZuulFilter {
 		}
 	}
 
-	private void writeResponse(InputStream zin, OutputStream out) throws Exception {
-		byte[] bytes = new byte[INITIAL_STREAM_BUFFER_SIZE.get()];
+	protected void writeResponse(InputStream zin, OutputStream out) throws Exception {
+		byte[] bytes = getBuffer();
+		int maxSize = Math.max(MAX_STREAM_BUFFER_SIZE.get(), bytes.length);
+		int flushThreshold = STREAM_FLUSH_THRESHOLD.get();
+		int unflushed = 0;
 		int bytesRead = -1;
 		while ((bytesRead = zin.read(bytes)) != -1) {
 			try {
 				out.write(bytes, 0, bytesRead);
-				out.flush();
+				unflushed += bytesRead;
+				if (flushThreshold >= 0 && unflushed >= flushThreshold) {
+					out.flush();
+					unflushed = 0;
+				}
 			}
 			catch (IOException ex) {
 				// ignore
 			}
 			// doubles buffer size if previous read filled it
-			if (bytesRead == bytes.length) {
-				bytes = new byte[bytes.length * 2];
+			if (bytesRead == bytes.length && bytes.length < maxSize) {
+				bytes = new byte[Math.min(bytes.length * 2, maxSize)];
+				this.buffers.set(bytes);
+			}
+		}
+	}
+
+	/**
+	 * The number of bytes decompressed in the proxy (because the client did not accept a
+	 * gzipped response) by route id.
+	 */
+	public Map<String, Long> getInflatedBytes() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (Map.Entry<String, AtomicLong> entry : this.inflatedBytes.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().get());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private void recordInflatedBytes(RequestContext context, long count) {
+		Object proxy = context.get("proxy");
+		if (proxy == null) {
+			return;
+		}
+		String route = proxy.toString();
+		AtomicLong total = this.inflatedBytes.get(route);
+		if (total == null) {
+			AtomicLong created = new AtomicLong();
+			total = this.inflatedBytes.putIfAbsent(route, created);
+			if (total == null) {
+				total = created;
 			}
 		}
+		total.addAndGet(count);
+	}
+
+	private byte[] getBuffer() {
+		int initialSize = INITIAL_STREAM_BUFFER_SIZE.get();
+		byte[] bytes = this.buffers.get();
+		if (bytes == null || bytes.length < initialSize) {
+			bytes = new byte[initialSize];
+			this.buffers.set(bytes);
+		}
+		return bytes;
 	}
 
 	private void addResponseHeaders() {
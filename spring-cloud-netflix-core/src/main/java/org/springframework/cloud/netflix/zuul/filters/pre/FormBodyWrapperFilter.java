@@ -18,37 +18,35 @@ package org.springframework.cloud.netflix.zuul.filters.pre;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.Field;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.Part;
 
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
-import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.ReflectionUtils;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartRequest;
 import org.springframework.web.servlet.DispatcherServlet;
 
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
-import com.netflix.zuul.http.HttpServletRequestWrapper;
 import com.netflix.zuul.http.ServletInputStreamWrapper;
 
 /**
@@ -56,15 +54,9 @@ import com.netflix.zuul.http.ServletInputStreamWrapper;
  */
 public class FormBodyWrapperFilter extends ZuulFilter {
 
-	private Field requestField;
+	private static final int MEDIA_TYPE_CACHE_SIZE = 100;
 
-	public FormBodyWrapperFilter() {
-		this.requestField = ReflectionUtils.findField(HttpServletRequestWrapper.class,
-				"req", HttpServletRequest.class);
-		Assert.notNull(this.requestField,
-				"HttpServletRequestWrapper.req field not found");
-		this.requestField.setAccessible(true);
-	}
+	private final ConcurrentMap<String, MediaType> mediaTypes = new ConcurrentHashMap<>();
 
 	@Override
 	public String filterType() {
@@ -88,7 +80,7 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 		// Only use this filter for form data and only for multipart data in a
 		// DispatcherServlet handler
 		try {
-			MediaType mediaType = MediaType.valueOf(contentType);
+			MediaType mediaType = getMediaType(contentType);
 			return MediaType.APPLICATION_FORM_URLENCODED.includes(mediaType)
 					|| (isDispatcherServletRequest(request)
 							&& MediaType.MULTIPART_FORM_DATA.includes(mediaType));
@@ -98,6 +90,23 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 		}
 	}
 
+	/**
+	 * Parse the content type, caching the result for the usual few form content types.
+	 * Multipart content types are not cached since their boundary is different for
+	 * every request.
+	 */
+	private MediaType getMediaType(String contentType) {
+		MediaType mediaType = this.mediaTypes.get(contentType);
+		if (mediaType == null) {
+			mediaType = MediaType.valueOf(contentType);
+			if (mediaType.getParameter("boundary") == null
+					&& this.mediaTypes.size() < MEDIA_TYPE_CACHE_SIZE) {
+				this.mediaTypes.put(contentType, mediaType);
+			}
+		}
+		return mediaType;
+	}
+
 	private boolean isDispatcherServletRequest(HttpServletRequest request) {
 		return request.getAttribute(
 				DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE) != null;
@@ -107,20 +116,15 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 	public Object run() {
 		RequestContext ctx = RequestContext.getCurrentContext();
 		HttpServletRequest request = ctx.getRequest();
-		FormBodyRequestWrapper wrapper = null;
-		if (request instanceof HttpServletRequestWrapper) {
-			HttpServletRequest wrapped = (HttpServletRequest) ReflectionUtils
-					.getField(this.requestField, request);
-			wrapper = new FormBodyRequestWrapper(wrapped);
-			ReflectionUtils.setField(this.requestField, request, wrapper);
-		}
-		else {
-			wrapper = new FormBodyRequestWrapper(request);
-			ctx.setRequest(wrapper);
-		}
-		if (wrapper != null) {
-			ctx.getZuulRequestHeaders().put("content-type", wrapper.getContentType());
+		if (request instanceof Servlet30RequestWrapper) {
+			// replace the wrapper (our wrapper is one too) rather than wrapping it, it
+			// exposes the raw request without buffering the body
+			request = ((Servlet30RequestWrapper) request).getRequest();
 		}
+		FormBodyRequestWrapper wrapper = new FormBodyRequestWrapper(request,
+				getMediaType(request.getContentType()));
+		ctx.setRequest(wrapper);
+		ctx.getZuulRequestHeaders().put("content-type", wrapper.getContentType());
 		return null;
 	}
 
@@ -130,20 +134,26 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 
 		private byte[] contentData;
 
+		private MultipartBody multipartData;
+
 		private MediaType contentType;
 
+		private final MediaType requestContentType;
+
 		private int contentLength;
 
 		private AllEncompassingFormHttpMessageConverter converter = new AllEncompassingFormHttpMessageConverter();
 
-		public FormBodyRequestWrapper(HttpServletRequest request) {
+		public FormBodyRequestWrapper(HttpServletRequest request,
+				MediaType requestContentType) {
 			super(request);
 			this.request = request;
+			this.requestContentType = requestContentType;
 		}
 
 		@Override
 		public String getContentType() {
-			if (this.contentData == null) {
+			if (this.contentData == null && this.multipartData == null) {
 				buildContentData();
 			}
 			return this.contentType.toString();
@@ -154,7 +164,7 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 			if (super.getContentLength() <= 0) {
 				return super.getContentLength();
 			}
-			if (this.contentData == null) {
+			if (this.contentData == null && this.multipartData == null) {
 				buildContentData();
 			}
 			return this.contentLength;
@@ -162,9 +172,12 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 
 		@Override
 		public ServletInputStream getInputStream() throws IOException {
-			if (this.contentData == null) {
+			if (this.contentData == null && this.multipartData == null) {
 				buildContentData();
 			}
+			if (this.multipartData != null) {
+				return new StreamingServletInputStream(this.multipartData.getInputStream());
+			}
 			return new ServletInputStreamWrapper(this.contentData);
 		}
 
@@ -181,26 +194,14 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 					}
 				}
 				if (this.request instanceof MultipartRequest) {
-					MultipartRequest multi = (MultipartRequest) this.request;
-					for (Entry<String, List<MultipartFile>> parts : multi
-							.getMultiFileMap().entrySet()) {
-						for (Part file : this.request.getParts()) {
-							HttpHeaders headers = new HttpHeaders();
-							headers.setContentDispositionFormData(file.getName(),
-									file.getSubmittedFileName());
-							if (file.getContentType() != null) {
-								headers.setContentType(
-										MediaType.valueOf(file.getContentType()));
-							}
-							HttpEntity<Resource> entity = new HttpEntity<Resource>(
-									new InputStreamResource(file.getInputStream()),
-									headers);
-							builder.add(parts.getKey(), entity);
-						}
-					}
+					buildMultipartData(builder,
+							((MultipartRequest) this.request).getMultiFileMap());
+					return;
 				}
+				// the parameters are already in memory (bounded by the container's maximum
+				// POST size) so the url encoded body is not much extra
 				FormHttpOutputMessage data = new FormHttpOutputMessage();
-				this.contentType = MediaType.valueOf(this.request.getContentType());
+				this.contentType = this.requestContentType;
 				data.getHeaders().setContentType(this.contentType);
 				this.converter.write(builder, this.contentType, data);
 				// copy new content type including multipart boundary
@@ -213,6 +214,36 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 			}
 		}
 
+		/**
+		 * Encode the multipart body lazily: the headers and the form fields are small
+		 * and kept as bytes, but the files are streamed from the parts (which the
+		 * container keeps on disk above its file size threshold) when the body is
+		 * read, so uploads are never copied into memory.
+		 */
+		private void buildMultipartData(MultiValueMap<String, Object> fields,
+				MultiValueMap<String, MultipartFile> files) throws IOException {
+			MultipartBody body = new MultipartBody();
+			for (Entry<String, List<Object>> entry : fields.entrySet()) {
+				for (Object value : entry.getValue()) {
+					body.addField(entry.getKey(), (String) value);
+				}
+			}
+			for (Entry<String, List<MultipartFile>> entry : files.entrySet()) {
+				for (MultipartFile file : entry.getValue()) {
+					body.addFile(entry.getKey(), file);
+				}
+			}
+			body.finish();
+			MediaType original = this.requestContentType;
+			Map<String, String> parameters = new LinkedHashMap<>(
+					original.getParameters());
+			parameters.put("boundary", body.getBoundary());
+			this.contentType = new MediaType(original, parameters);
+			this.multipartData = body;
+			this.contentLength = body.getLength() > Integer.MAX_VALUE ? -1
+					: (int) body.getLength();
+		}
+
 		private Set<String> findQueryParams() {
 			Set<String> result = new HashSet<>();
 			String query = this.request.getQueryString();
@@ -251,4 +282,64 @@ public class FormBodyWrapperFilter extends ZuulFilter {
 
 	}
 
+	private static class StreamingServletInputStream extends ServletInputStream {
+
+		private final InputStream input;
+
+		private boolean finished;
+
+		StreamingServletInputStream(InputStream input) {
+			this.input = input;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = this.input.read();
+			this.finished = result == -1;
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = this.input.read(b, off, len);
+			this.finished = result == -1;
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.input.close();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return this.finished;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		/**
+		 * The data is always ready (it comes from memory or from the parts the container
+		 * has already received), so the listener is called back straight away.
+		 */
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			try {
+				if (!this.finished) {
+					readListener.onDataAvailable();
+				}
+				if (this.finished) {
+					readListener.onAllDataRead();
+				}
+			}
+			catch (IOException ex) {
+				readListener.onError(ex);
+			}
+		}
+
+	}
+
 }
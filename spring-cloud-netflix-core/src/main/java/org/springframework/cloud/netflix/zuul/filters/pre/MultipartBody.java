@@ -0,0 +1,211 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.pre;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * A multipart/form-data body that is encoded up front except for the file contents,
+ * which are only read from the {@link MultipartFile}s when the body is streamed. The
+ * length is known before the body is read.
+ */
+class MultipartBody {
+
+	private static final Charset HEADER_CHARSET = Charset.forName("UTF-8");
+
+	// same as the FormHttpMessageConverter, which writes String parts as text/plain
+	private static final Charset FIELD_CHARSET = Charset.forName("ISO-8859-1");
+
+	private static final byte[] CRLF = { '\r', '\n' };
+
+	private static final byte[] DASHES = { '-', '-' };
+
+	private static final char[] BOUNDARY_CHARS = ("-_1234567890"
+			+ "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ").toCharArray();
+
+	private static final Random RANDOM = new Random();
+
+	private final String boundary;
+
+	private final byte[] boundaryBytes;
+
+	private final List<Object> chunks = new ArrayList<>();
+
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+	private long length;
+
+	MultipartBody() {
+		this.boundary = generateBoundary();
+		this.boundaryBytes = this.boundary.getBytes(HEADER_CHARSET);
+	}
+
+	public String getBoundary() {
+		return this.boundary;
+	}
+
+	public long getLength() {
+		return this.length;
+	}
+
+	public void addField(String name, String value) {
+		writeBoundary();
+		writeHeader("Content-Disposition: form-data; name=\"" + name + "\"");
+		writeHeader("Content-Type: text/plain;charset=" + FIELD_CHARSET.name());
+		write(CRLF);
+		write(value.getBytes(FIELD_CHARSET));
+		write(CRLF);
+	}
+
+	public void addFile(String name, MultipartFile file) {
+		writeBoundary();
+		String disposition = "Content-Disposition: form-data; name=\"" + name + "\"";
+		if (file.getOriginalFilename() != null) {
+			disposition += "; filename=\"" + file.getOriginalFilename() + "\"";
+		}
+		writeHeader(disposition);
+		if (file.getContentType() != null) {
+			writeHeader("Content-Type: " + file.getContentType());
+		}
+		write(CRLF);
+		flushPending();
+		this.chunks.add(file);
+		this.length += file.getSize();
+		write(CRLF);
+	}
+
+	public void finish() {
+		write(DASHES);
+		write(this.boundaryBytes);
+		write(DASHES);
+		write(CRLF);
+		flushPending();
+	}
+
+	/**
+	 * A new stream over the whole body (files are opened as they are reached).
+	 */
+	public InputStream getInputStream() {
+		return new BodyInputStream();
+	}
+
+	private void writeBoundary() {
+		write(DASHES);
+		write(this.boundaryBytes);
+		write(CRLF);
+	}
+
+	private void writeHeader(String header) {
+		write(header.getBytes(HEADER_CHARSET));
+		write(CRLF);
+	}
+
+	private void write(byte[] bytes) {
+		this.pending.write(bytes, 0, bytes.length);
+		this.length += bytes.length;
+	}
+
+	private void flushPending() {
+		if (this.pending.size() > 0) {
+			this.chunks.add(this.pending.toByteArray());
+			this.pending.reset();
+		}
+	}
+
+	private static String generateBoundary() {
+		char[] boundary = new char[RANDOM.nextInt(11) + 30];
+		for (int i = 0; i < boundary.length; i++) {
+			boundary[i] = BOUNDARY_CHARS[RANDOM.nextInt(BOUNDARY_CHARS.length)];
+		}
+		return new String(boundary);
+	}
+
+	private class BodyInputStream extends InputStream {
+
+		private int index;
+
+		private InputStream current;
+
+		@Override
+		public int read() throws IOException {
+			while (nextChunk()) {
+				int result = this.current.read();
+				if (result != -1) {
+					return result;
+				}
+				closeCurrent();
+			}
+			return -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			while (nextChunk()) {
+				int result = this.current.read(b, off, len);
+				if (result > 0) {
+					return result;
+				}
+				closeCurrent();
+			}
+			return -1;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closeCurrent();
+			this.index = MultipartBody.this.chunks.size();
+		}
+
+		private boolean nextChunk() throws IOException {
+			if (this.current != null) {
+				return true;
+			}
+			if (this.index >= MultipartBody.this.chunks.size()) {
+				return false;
+			}
+			Object chunk = MultipartBody.this.chunks.get(this.index++);
+			if (chunk instanceof MultipartFile) {
+				this.current = ((MultipartFile) chunk).getInputStream();
+			}
+			else {
+				this.current = new ByteArrayInputStream((byte[]) chunk);
+			}
+			return true;
+		}
+
+		private void closeCurrent() throws IOException {
+			if (this.current != null) {
+				this.current.close();
+				this.current = null;
+			}
+		}
+
+	}
+
+}
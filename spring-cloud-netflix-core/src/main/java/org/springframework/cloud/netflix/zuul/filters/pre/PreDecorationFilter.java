@@ -22,7 +22,11 @@ import java.net.URL;
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
 import org.springframework.cloud.netflix.zuul.filters.Route;
 import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.RouteTarget;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.route.ResponseCacheRouteFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonRoutingFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
 import org.springframework.cloud.netflix.zuul.util.RequestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.util.UrlPathHelper;
@@ -85,7 +89,13 @@ public class PreDecorationFilter extends ZuulFilter {
 			if (location != null) {
 				ctx.put("requestURI", route.getPath());
 				ctx.put("proxy", route.getId());
-				if (!route.isCustomSensitiveHeaders()) {
+				if (route.getIgnoredHeaders() != null
+						&& !ctx.containsKey(ProxyRequestHelper.IGNORED_HEADERS)) {
+					// precomputed for the route, so no need to copy it
+					ctx.put(ProxyRequestHelper.IGNORED_HEADERS,
+							route.getIgnoredHeaders());
+				}
+				else if (!route.isCustomSensitiveHeaders()) {
 					this.proxyRequestHelper.addIgnoredHeaders(
 							this.properties.getSensitiveHeaders().toArray(new String[0]));
 				}
@@ -97,9 +107,26 @@ public class PreDecorationFilter extends ZuulFilter {
 				if (route.getRetryable() != null) {
 					ctx.put("retryable", route.getRetryable());
 				}
+				if (route.isNegotiateGzip()) {
+					ctx.put(ProxyRequestHelper.NEGOTIATE_GZIP, true);
+				}
+				if (!route.isTrace()) {
+					ctx.put(ProxyRequestHelper.TRACE_DISABLED, true);
+				}
+				if (route.getBulkhead() != null && route.getBulkhead().isEnabled()) {
+					ctx.put(RibbonRoutingFilter.BULKHEAD, route.getBulkhead());
+				}
+				if (route.isCacheResponses()) {
+					ctx.put(ResponseCacheRouteFilter.CACHE_RESPONSES, true);
+				}
 
 				if (location.startsWith("http:") || location.startsWith("https:")) {
-					ctx.setRouteHost(getUrl(location));
+					RouteTarget target = route.getTarget();
+					if (target == null) {
+						target = new RouteTarget(getUrl(location));
+					}
+					ctx.setRouteHost(target.getUrl());
+					ctx.put(SimpleHostRoutingFilter.ROUTE_TARGET, target);
 					ctx.addOriginResponseHeader("X-Zuul-Service", location);
 				}
 				else if (location.startsWith("forward:")) {
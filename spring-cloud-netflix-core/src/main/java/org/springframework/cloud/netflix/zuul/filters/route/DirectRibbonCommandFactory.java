@@ -0,0 +1,30 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route;
+
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link RibbonCommandFactory} that can also forward a request without wrapping it in
+ * a Hystrix command, for routes that use a lightweight bulkhead instead.
+ */
+public interface DirectRibbonCommandFactory<T extends RibbonCommand>
+		extends RibbonCommandFactory<T> {
+
+	ClientHttpResponse forward(RibbonCommandContext context) throws Exception;
+
+}
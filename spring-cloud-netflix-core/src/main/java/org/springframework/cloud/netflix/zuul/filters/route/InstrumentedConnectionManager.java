@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+/**
+ * {@link PoolingHttpClientConnectionManager} that records how many connections were
+ * leased from the pool and how long callers waited for them.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+	private final AtomicLong leases = new AtomicLong();
+
+	private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+	public InstrumentedConnectionManager(Registry<ConnectionSocketFactory> registry,
+			long timeToLive, TimeUnit timeUnit) {
+		super(registry, null, null, null, timeToLive, timeUnit);
+	}
+
+	@Override
+	public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+		final ConnectionRequest request = super.requestConnection(route, state);
+		return new ConnectionRequest() {
+
+			@Override
+			public HttpClientConnection get(long timeout, TimeUnit tunit)
+					throws InterruptedException, ExecutionException,
+					ConnectionPoolTimeoutException {
+				long start = System.nanoTime();
+				try {
+					return request.get(timeout, tunit);
+				}
+				finally {
+					InstrumentedConnectionManager.this.leases.incrementAndGet();
+					InstrumentedConnectionManager.this.leaseWaitNanos
+							.addAndGet(System.nanoTime() - start);
+				}
+			}
+
+			@Override
+			public boolean cancel() {
+				return request.cancel();
+			}
+
+		};
+	}
+
+	/**
+	 * The number of connection requests served (or timed out) so far.
+	 */
+	public long getLeaseCount() {
+		return this.leases.get();
+	}
+
+	/**
+	 * The total time in milliseconds that callers waited for a connection from the pool.
+	 */
+	public long getLeaseWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.leaseWaitNanos.get());
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route;
+
+import java.util.concurrent.CountDownLatch;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.cloud.netflix.zuul.filters.route.support.CachedResponse;
+import org.springframework.cloud.netflix.zuul.filters.route.support.ResponseCacheStore;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Route filter that answers GET requests for the routes that cache responses from the
+ * {@link ResponseCacheStore} while the stored response is fresh, before the Ribbon and
+ * simple host filters get a chance to call the downstream service. When the stored
+ * response is stale the request goes downstream as a conditional request (unless the
+ * client made its own), so a 304 can refresh it. Concurrent requests for a response
+ * that is missing or stale wait for the first of them to fetch it, unless the last
+ * response for the same key could not be stored. The response is
+ * stored (and the waiting requests released) by the {@link ResponseCachePostFilter}.
+ */
+public class ResponseCacheRouteFilter extends ZuulFilter {
+
+	/**
+	 * Request context key for the flag saying the route caches responses.
+	 */
+	public static final String CACHE_RESPONSES = "cacheResponses";
+
+	/**
+	 * Request context key for the cache key of a response that has to be stored.
+	 */
+	public static final String CACHE_KEY = "responseCacheKey";
+
+	/**
+	 * Request context key for the stale response that is being revalidated.
+	 */
+	public static final String STALE_RESPONSE = "responseCacheStale";
+
+	/**
+	 * Request context key for the latch that releases the requests waiting for this one
+	 * to fetch the response.
+	 */
+	public static final String CACHE_LEADER = "responseCacheLeader";
+
+	private final ResponseCacheStore store;
+
+	public ResponseCacheRouteFilter(ResponseCacheStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public String filterType() {
+		return "route";
+	}
+
+	@Override
+	public int filterOrder() {
+		return 5;
+	}
+
+	@Override
+	public boolean shouldFilter() {
+		RequestContext ctx = RequestContext.getCurrentContext();
+		return ctx.getBoolean(CACHE_RESPONSES) && ctx.sendZuulResponse()
+				&& "GET".equals(ctx.getRequest().getMethod());
+	}
+
+	@Override
+	public Object run() {
+		RequestContext ctx = RequestContext.getCurrentContext();
+		HttpServletRequest request = ctx.getRequest();
+		String cacheControl = request.getHeader("Cache-Control");
+		if (request.getHeader("Authorization") != null
+				|| hasDirective(cacheControl, "no-store")) {
+			return null;
+		}
+		boolean revalidate = hasDirective(cacheControl, "no-cache")
+				|| hasDirective(cacheControl, "max-age=0")
+				|| hasDirective(request.getHeader("Pragma"), "no-cache");
+		String key = getKey(ctx, request);
+		CachedResponse cached = this.store.get(key, ctx);
+		if (cached != null && !revalidate && serve(ctx, request, cached)) {
+			return null;
+		}
+		CountDownLatch leader = null;
+		// no point waiting for a response that will not be stored
+		if (this.store.shouldCoalesce(key)) {
+			leader = this.store.lead(key);
+			if (leader == null) {
+				this.store.await(key);
+				CachedResponse fetched = this.store.get(key, ctx);
+				if (fetched != null && fetched != cached
+						&& serve(ctx, request, fetched)) {
+					return null;
+				}
+				cached = fetched != null ? fetched : cached;
+			}
+		}
+		if (leader != null) {
+			ctx.set(CACHE_LEADER, leader);
+		}
+		ctx.set(CACHE_KEY, key);
+		if (cached != null && cached.hasValidator()
+				&& request.getHeader("If-None-Match") == null
+				&& request.getHeader("If-Modified-Since") == null) {
+			if (cached.getEtag() != null) {
+				ctx.addZuulRequestHeader("If-None-Match", cached.getEtag());
+			}
+			if (cached.getLastModified() != null) {
+				ctx.addZuulRequestHeader("If-Modified-Since", cached.getLastModified());
+			}
+			ctx.set(STALE_RESPONSE, cached);
+		}
+		return null;
+	}
+
+	private boolean serve(RequestContext ctx, HttpServletRequest request,
+			CachedResponse cached) {
+		long now = System.currentTimeMillis();
+		if (!cached.isFresh(now)) {
+			return false;
+		}
+		cached.writeTo(ctx, isNotModified(request, cached), now);
+		// nothing left to route
+		ctx.setRouteHost(null);
+		ctx.remove("serviceId");
+		return true;
+	}
+
+	private boolean isNotModified(HttpServletRequest request, CachedResponse cached) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch == null || cached.getEtag() == null) {
+			return false;
+		}
+		String etag = weak(cached.getEtag());
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if ("*".equals(candidate) || weak(candidate).equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String getKey(RequestContext ctx, HttpServletRequest request) {
+		StringBuilder key = new StringBuilder();
+		key.append(ctx.get("proxy")).append(' ').append(request.getRequestURI());
+		if (request.getQueryString() != null) {
+			key.append('?').append(request.getQueryString());
+		}
+		return key.toString();
+	}
+
+	private static String weak(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	private static boolean hasDirective(String header, String directive) {
+		if (header == null) {
+			return false;
+		}
+		for (String value : header.split(",")) {
+			if (value.trim().equalsIgnoreCase(directive)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -18,18 +18,26 @@ package org.springframework.cloud.netflix.zuul.filters.route;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.route.support.RouteBulkhead;
+import org.springframework.cloud.netflix.zuul.filters.route.support.RouteBulkhead.Admission;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.util.MultiValueMap;
 
 import com.netflix.client.ClientException;
 import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
 import com.netflix.zuul.exception.ZuulException;
@@ -39,10 +47,21 @@ import lombok.extern.apachecommons.CommonsLog;
 @CommonsLog
 public class RibbonRoutingFilter extends ZuulFilter {
 
+	/**
+	 * Request context key for the bulkhead properties of a route that is forwarded
+	 * without Hystrix.
+	 */
+	public static final String BULKHEAD = "bulkhead";
+
 	private static final String ERROR_STATUS_CODE = "error.status_code";
 	protected ProxyRequestHelper helper;
 	protected RibbonCommandFactory<?> ribbonCommandFactory;
 
+	private final ConcurrentMap<String, RouteBulkhead> bulkheads = new ConcurrentHashMap<>();
+
+	private final Set<String> unsupportedBulkheadRoutes = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
 	public RibbonRoutingFilter(ProxyRequestHelper helper,
 			RibbonCommandFactory<?> ribbonCommandFactory) {
 		this.helper = helper;
@@ -122,6 +141,11 @@ public class RibbonRoutingFilter extends ZuulFilter {
 		Map<String, Object> info = this.helper.debug(context.getMethod(), context.getUri(),
 				context.getHeaders(), context.getParams(), context.getRequestEntity());
 
+		RouteBulkhead bulkhead = getBulkhead(RequestContext.getCurrentContext());
+		if (bulkhead != null) {
+			return forward(info, context, bulkhead);
+		}
+
 		RibbonCommand command = this.ribbonCommandFactory.create(context);
 		try {
 			ClientHttpResponse response = command.execute();
@@ -135,6 +159,76 @@ public class RibbonRoutingFilter extends ZuulFilter {
 
 	}
 
+	/**
+	 * Forward without a Hystrix command, guarded by the bulkhead of the route. Failures
+	 * are reported as the equivalent {@link HystrixRuntimeException} so that they are
+	 * handled exactly like the ones of a command.
+	 */
+	private ClientHttpResponse forward(Map<String, Object> info,
+			RibbonCommandContext context, RouteBulkhead bulkhead) throws Exception {
+		if (!bulkhead.tryAcquire()) {
+			return handleException(info, new HystrixRuntimeException(
+					FailureType.REJECTED_SEMAPHORE_EXECUTION, RibbonCommand.class,
+					"could not acquire a semaphore for execution", null, null));
+		}
+		Admission admission = bulkhead.allowRequest();
+		if (!admission.isAllowed()) {
+			bulkhead.release();
+			return handleException(info, new HystrixRuntimeException(
+					FailureType.SHORTCIRCUIT, RibbonCommand.class,
+					"short-circuited and no fallback available.", null, null));
+		}
+		boolean success = false;
+		try {
+			DirectRibbonCommandFactory<?> factory;
+			factory = (DirectRibbonCommandFactory<?>) this.ribbonCommandFactory;
+			ClientHttpResponse response = factory.forward(context);
+			success = true;
+			this.helper.appendDebug(info, response.getStatusCode().value(),
+					response.getHeaders());
+			return response;
+		}
+		catch (Exception ex) {
+			return handleException(info,
+					new HystrixRuntimeException(FailureType.COMMAND_EXCEPTION,
+							RibbonCommand.class, "failed and no fallback available.", ex,
+							null));
+		}
+		finally {
+			bulkhead.complete(admission, success);
+		}
+	}
+
+	private RouteBulkhead getBulkhead(RequestContext context) {
+		Object properties = context.get(BULKHEAD);
+		String routeId = (String) context.get("proxy");
+		if (!(properties instanceof ZuulProperties.Bulkhead) || routeId == null) {
+			return null;
+		}
+		if (!(this.ribbonCommandFactory instanceof DirectRibbonCommandFactory)) {
+			if (this.unsupportedBulkheadRoutes.add(routeId)) {
+				log.warn("Bulkhead of route " + routeId + " ignored, "
+						+ this.ribbonCommandFactory.getClass().getSimpleName()
+						+ " cannot forward without Hystrix");
+			}
+			return null;
+		}
+		while (true) {
+			RouteBulkhead bulkhead = this.bulkheads.get(routeId);
+			if (bulkhead != null && bulkhead.getProperties() == properties) {
+				return bulkhead;
+			}
+			// new route or the properties were rebound, the first request to swap in a
+			// new bulkhead wins and everyone shares it
+			RouteBulkhead created = new RouteBulkhead(
+					(ZuulProperties.Bulkhead) properties);
+			if (bulkhead == null ? this.bulkheads.putIfAbsent(routeId, created) == null
+					: this.bulkheads.replace(routeId, bulkhead, created)) {
+				return created;
+			}
+		}
+	}
+
 	protected ClientHttpResponse handleException(Map<String, Object> info,
 			HystrixRuntimeException ex) throws ZuulException {
 		int statusCode = HttpStatus.INTERNAL_SERVER_ERROR.value();
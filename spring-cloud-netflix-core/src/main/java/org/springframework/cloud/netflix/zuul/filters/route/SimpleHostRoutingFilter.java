@@ -23,10 +23,14 @@ import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -49,6 +53,7 @@ import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -63,13 +68,17 @@ import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicHttpRequest;
 import org.apache.http.protocol.HttpContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.netflix.httpclient.ConnectionEvictor;
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.cloud.netflix.zuul.filters.RouteTarget;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.Host;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
 import org.springframework.http.HttpStatus;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StringUtils;
+import org.springframework.util.ObjectUtils;
 
 import com.netflix.config.DynamicIntProperty;
 import com.netflix.config.DynamicPropertyFactory;
@@ -82,6 +91,12 @@ import lombok.extern.apachecommons.CommonsLog;
 @CommonsLog
 public class SimpleHostRoutingFilter extends ZuulFilter {
 
+	/**
+	 * Request context key for the {@link RouteTarget} of the route host, so that its URL
+	 * does not have to be parsed again.
+	 */
+	public static final String ROUTE_TARGET = "routeTarget";
+
 	private static final DynamicIntProperty SOCKET_TIMEOUT = DynamicPropertyFactory
 			.getInstance()
 			.getIntProperty(ZuulConstants.ZUUL_HOST_SOCKET_TIMEOUT_MILLIS, 10000);
@@ -91,51 +106,127 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 			.getIntProperty(ZuulConstants.ZUUL_HOST_CONNECT_TIMEOUT_MILLIS, 2000);
 	private static final String ERROR_STATUS_CODE = "error.status_code";
 
-	private final Timer connectionManagerTimer = new Timer(
-			"SimpleHostRoutingFilter.connectionManagerTimer", true);
+	private static final String CONNECTION_POOL_NAME = "zuul.host";
+
+	private static final String ROUTE_CONNECTION_POOL_PREFIX = "zuul.routes.";
+
+	/**
+	 * How long a retired route pool is kept open for the requests still using it, if it
+	 * does not become idle before.
+	 */
+	private static final long RETIRED_POOL_GRACE_MILLIS = 60000;
 
 	private ProxyRequestHelper helper;
+	private ZuulProperties properties;
 	private Host hostProperties;
 	private PoolingHttpClientConnectionManager connectionManager;
 	private CloseableHttpClient httpClient;
+	private volatile RequestConfig requestConfig;
+	private ConnectionEvictor connectionEvictor;
+	private boolean ownConnectionEvictor;
+
+	/**
+	 * Connection pools of the routes that have their own host properties, by route id.
+	 */
+	private final ConcurrentMap<String, RoutePool> routePools = new ConcurrentHashMap<>();
+
+	/**
+	 * Route pools that were replaced or whose route lost its host properties, waiting
+	 * for the requests that use them to finish before they are closed.
+	 */
+	private final ConcurrentLinkedQueue<RoutePool> retiredPools = new ConcurrentLinkedQueue<>();
 
-	private final Runnable clientloader = new Runnable() {
+	private final Runnable timeoutUpdater = new Runnable() {
 		@Override
 		public void run() {
-			try {
-				SimpleHostRoutingFilter.this.httpClient.close();
-			}
-			catch (IOException ex) {
-				log.error("error closing client", ex);
+			// new timeouts apply to the next request, without closing pooled connections
+			SimpleHostRoutingFilter.this.requestConfig = newRequestConfig(
+					SimpleHostRoutingFilter.this.hostProperties);
+			for (RoutePool pool : SimpleHostRoutingFilter.this.routePools.values()) {
+				pool.configure(pool.host);
 			}
-			SimpleHostRoutingFilter.this.httpClient = newClient();
+		}
+	};
+
+	private final Runnable poolSweeper = new Runnable() {
+		@Override
+		public void run() {
+			// on the evictor thread, so pools are retired and closed even if their route
+			// gets no more requests
+			retireStalePools();
+			closeRetiredPools();
 		}
 	};
 
 	public SimpleHostRoutingFilter(ProxyRequestHelper helper, ZuulProperties properties) {
 		this.helper = helper;
+		this.properties = properties;
 		this.hostProperties = properties.getHost();
 	}
 
 	@PostConstruct
 	private void initialize() {
+		this.requestConfig = newRequestConfig(this.hostProperties);
 		this.httpClient = newClient();
-		SOCKET_TIMEOUT.addCallback(this.clientloader);
-		CONNECTION_TIMEOUT.addCallback(this.clientloader);
-		this.connectionManagerTimer.schedule(new TimerTask() {
-			@Override
-			public void run() {
-				if (SimpleHostRoutingFilter.this.connectionManager == null) {
-					return;
-				}
-				SimpleHostRoutingFilter.this.connectionManager.closeExpiredConnections();
-			}
-		}, 30000, 5000);
+		SOCKET_TIMEOUT.addCallback(this.timeoutUpdater);
+		CONNECTION_TIMEOUT.addCallback(this.timeoutUpdater);
+		if (this.connectionEvictor == null) {
+			// no shared evictor, so only close expired connections like we always did
+			this.connectionEvictor = new ConnectionEvictor(5000, -1);
+			this.ownConnectionEvictor = true;
+		}
+		if (this.connectionManager != null) {
+			this.connectionEvictor.register(CONNECTION_POOL_NAME, this.connectionManager);
+		}
+		this.connectionEvictor.registerTask(CONNECTION_POOL_NAME, this.poolSweeper);
 	}
 
 	@PreDestroy
 	public void stop() {
-		this.connectionManagerTimer.cancel();
+		this.connectionEvictor.unregisterTask(CONNECTION_POOL_NAME);
+		for (Map.Entry<String, RoutePool> entry : this.routePools.entrySet()) {
+			entry.getValue().close();
+			this.connectionEvictor
+					.unregister(ROUTE_CONNECTION_POOL_PREFIX + entry.getKey());
+		}
+		this.routePools.clear();
+		RoutePool retired;
+		while ((retired = this.retiredPools.poll()) != null) {
+			retired.close();
+		}
+		this.connectionEvictor.unregister(CONNECTION_POOL_NAME);
+		if (this.ownConnectionEvictor) {
+			this.connectionEvictor.destroy();
+		}
+	}
+
+	/**
+	 * Set the evictor that closes expired and idle connections in the connection pools.
+	 * If none is set the filter starts its own evictor, which only closes expired
+	 * connections.
+	 */
+	@Autowired(required = false)
+	public void setConnectionEvictor(ConnectionEvictor connectionEvictor) {
+		this.connectionEvictor = connectionEvictor;
+	}
+
+	/**
+	 * The connection manager shared by all routes without their own host properties.
+	 */
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return this.connectionManager;
+	}
+
+	/**
+	 * The connection managers of the routes that have their own host properties, by
+	 * route id.
+	 */
+	public Map<String, PoolingHttpClientConnectionManager> getRouteConnectionManagers() {
+		Map<String, PoolingHttpClientConnectionManager> managers = new LinkedHashMap<>();
+		for (Map.Entry<String, RoutePool> entry : this.routePools.entrySet()) {
+			managers.put(entry.getKey(), entry.getValue().connectionManager);
+		}
+		return managers;
 	}
 
 	@Override
@@ -171,9 +262,16 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 		String uri = this.helper.buildZuulRequestURI(request);
 		this.helper.addIgnoredHeaders();
 
+		RoutePool pool = acquireRoutePool((String) context.get("proxy"));
 		try {
-			HttpResponse response = forward(this.httpClient, verb, uri, request, headers,
-					params, requestEntity);
+			HttpClient httpClient = this.httpClient;
+			RequestConfig requestConfig = this.requestConfig;
+			if (pool != null) {
+				httpClient = pool.httpClient;
+				requestConfig = pool.requestConfig;
+			}
+			HttpResponse response = forward(httpClient, requestConfig, verb, uri,
+					request, headers, params, requestEntity);
 			setResponse(response);
 		}
 		catch (Exception ex) {
@@ -181,10 +279,25 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 					HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
 			context.set("error.exception", ex);
 		}
+		finally {
+			// the connection stays leased until the response body has been sent
+			if (pool != null) {
+				pool.release();
+			}
+		}
 		return null;
 	}
 
 	protected PoolingHttpClientConnectionManager newConnectionManager() {
+		this.connectionManager = newConnectionManager(this.hostProperties);
+		return this.connectionManager;
+	}
+
+	/**
+	 * Create a connection manager sized (and with a connection time to live) according
+	 * to the given host properties.
+	 */
+	protected PoolingHttpClientConnectionManager newConnectionManager(Host host) {
 		try {
 			final SSLContext sslContext = SSLContext.getInstance("SSL");
 			sslContext.init(null, new TrustManager[] { new X509TrustManager() {
@@ -210,12 +323,12 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 					.register("https", new SSLConnectionSocketFactory(sslContext))
 					.build();
 
-			this.connectionManager = new PoolingHttpClientConnectionManager(registry);
-			this.connectionManager
-					.setMaxTotal(this.hostProperties.getMaxTotalConnections());
-			this.connectionManager.setDefaultMaxPerRoute(
-					this.hostProperties.getMaxPerRouteConnections());
-			return this.connectionManager;
+			PoolingHttpClientConnectionManager connectionManager;
+			connectionManager = new InstrumentedConnectionManager(registry,
+					host.getTimeToLive(), host.getTimeUnit());
+			connectionManager.setMaxTotal(host.getMaxTotalConnections());
+			connectionManager.setDefaultMaxPerRoute(host.getMaxPerRouteConnections());
+			return connectionManager;
 		}
 		catch (Exception ex) {
 			throw new RuntimeException(ex);
@@ -223,13 +336,13 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 	}
 
 	protected CloseableHttpClient newClient() {
-		final RequestConfig requestConfig = RequestConfig.custom()
-				.setSocketTimeout(SOCKET_TIMEOUT.get())
-				.setConnectTimeout(CONNECTION_TIMEOUT.get())
-				.setCookieSpec(CookieSpecs.IGNORE_COOKIES).build();
+		return newClient(newConnectionManager());
+	}
 
-		return HttpClients.custom().setConnectionManager(newConnectionManager())
-				.setDefaultRequestConfig(requestConfig)
+	protected CloseableHttpClient newClient(
+			PoolingHttpClientConnectionManager connectionManager) {
+		return HttpClients.custom().setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(newRequestConfig(this.hostProperties))
 				.setRetryHandler(new DefaultHttpRequestRetryHandler(0, false))
 				.setRedirectStrategy(new RedirectStrategy() {
 					@Override
@@ -248,15 +361,118 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 				}).build();
 	}
 
-	private HttpResponse forward(HttpClient httpclient, String verb, String uri,
-			HttpServletRequest request, MultiValueMap<String, String> headers,
-			MultiValueMap<String, String> params, InputStream requestEntity)
-					throws Exception {
+	private RequestConfig newRequestConfig(Host host) {
+		Integer socketTimeout = host.getSocketTimeoutMillis();
+		Integer connectTimeout = host.getConnectTimeoutMillis();
+		return RequestConfig.custom()
+				.setSocketTimeout(host == this.hostProperties || socketTimeout == null
+						? SOCKET_TIMEOUT.get() : socketTimeout)
+				.setConnectTimeout(host == this.hostProperties || connectTimeout == null
+						? CONNECTION_TIMEOUT.get() : connectTimeout)
+				.setCookieSpec(CookieSpecs.IGNORE_COOKIES).build();
+	}
+
+	private RoutePool acquireRoutePool(String routeId) {
+		RoutePool pool = getRoutePool(routeId);
+		while (pool != null && !pool.acquire()) {
+			// retired since it was looked up, so it is no longer in the map
+			pool = getRoutePool(routeId);
+		}
+		return pool;
+	}
+
+	private RoutePool getRoutePool(String routeId) {
+		if (routeId == null) {
+			return null;
+		}
+		ZuulRoute route = findRoute(routeId);
+		Host host = route == null ? null : route.getHost();
+		RoutePool pool = this.routePools.get(routeId);
+		if (pool != null && (host == null || !pool.isCompatibleWith(host))) {
+			retire(routeId, pool);
+			pool = null;
+		}
+		if (host == null) {
+			return null;
+		}
+		if (pool == null) {
+			synchronized (this.routePools) {
+				pool = this.routePools.get(routeId);
+				if (pool == null) {
+					PoolingHttpClientConnectionManager manager = newConnectionManager(host);
+					pool = new RoutePool(manager, newClient(manager), host);
+					pool.configure(host);
+					this.routePools.put(routeId, pool);
+					this.connectionEvictor
+							.register(ROUTE_CONNECTION_POOL_PREFIX + routeId, manager);
+				}
+			}
+		}
+		else if (!pool.isConfiguredFor(host)) {
+			// the properties were rebound: resize the existing pool in place
+			pool.configure(host);
+		}
+		return pool;
+	}
+
+	private void retire(String routeId, RoutePool pool) {
+		// under the same lock as the creation, so a new pool is not unregistered
+		synchronized (this.routePools) {
+			if (!this.routePools.remove(routeId, pool)) {
+				return;
+			}
+			this.connectionEvictor.unregister(ROUTE_CONNECTION_POOL_PREFIX + routeId);
+		}
+		pool.retire();
+		this.retiredPools.add(pool);
+	}
+
+	private void retireStalePools() {
+		for (Map.Entry<String, RoutePool> entry : this.routePools.entrySet()) {
+			ZuulRoute route = findRoute(entry.getKey());
+			Host host = route == null ? null : route.getHost();
+			if (host == null || !entry.getValue().isCompatibleWith(host)) {
+				retire(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	private void closeRetiredPools() {
+		if (this.retiredPools.isEmpty()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (RoutePool pool : this.retiredPools) {
+			if ((pool.isIdle() || now - pool.retiredAt >= RETIRED_POOL_GRACE_MILLIS)
+					&& this.retiredPools.remove(pool)) {
+				pool.close();
+			}
+		}
+	}
+
+	private ZuulRoute findRoute(String routeId) {
+		Map<String, ZuulRoute> routes = this.properties.getRoutes();
+		ZuulRoute route = routes.get(routeId);
+		if (route != null && routeId.equals(route.getId())) {
+			return route;
+		}
+		for (ZuulRoute candidate : routes.values()) {
+			if (routeId.equals(candidate.getId())) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private HttpResponse forward(HttpClient httpclient, RequestConfig requestConfig,
+			String verb, String uri, HttpServletRequest request,
+			MultiValueMap<String, String> headers, MultiValueMap<String, String> params,
+			InputStream requestEntity) throws Exception {
 		Map<String, Object> info = this.helper.debug(verb, uri, headers, params,
 				requestEntity);
-		URL host = RequestContext.getCurrentContext().getRouteHost();
-		HttpHost httpHost = getHttpHost(host);
-		uri = StringUtils.cleanPath((host.getPath() + uri).replaceAll("/{2,}", "/"));
+		RouteTarget target = getRouteTarget(RequestContext.getCurrentContext());
+		HttpHost httpHost = target.getHttpHost();
+		uri = target.getPath(uri);
 		HttpRequest httpRequest;
 		int contentLength = request.getContentLength();
 		InputStreamEntity entity = new InputStreamEntity(requestEntity, contentLength,
@@ -287,7 +503,10 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 			httpRequest.setHeaders(convertHeaders(headers));
 			log.debug(httpHost.getHostName() + " " + httpHost.getPort() + " "
 					+ httpHost.getSchemeName());
-			HttpResponse zuulResponse = forwardRequest(httpclient, httpHost, httpRequest);
+			HttpClientContext httpContext = HttpClientContext.create();
+			httpContext.setRequestConfig(requestConfig);
+			HttpResponse zuulResponse = forwardRequest(httpclient, httpHost, httpRequest,
+					httpContext);
 			this.helper.appendDebug(info, zuulResponse.getStatusLine().getStatusCode(),
 					revertHeaders(zuulResponse.getAllHeaders()));
 			return zuulResponse;
@@ -323,14 +542,18 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 	}
 
 	private HttpResponse forwardRequest(HttpClient httpclient, HttpHost httpHost,
-			HttpRequest httpRequest) throws IOException {
-		return httpclient.execute(httpHost, httpRequest);
+			HttpRequest httpRequest, HttpContext httpContext) throws IOException {
+		return httpclient.execute(httpHost, httpRequest, httpContext);
 	}
 
-	private HttpHost getHttpHost(URL host) {
-		HttpHost httpHost = new HttpHost(host.getHost(), host.getPort(),
-				host.getProtocol());
-		return httpHost;
+	private RouteTarget getRouteTarget(RequestContext context) {
+		URL host = context.getRouteHost();
+		Object target = context.get(ROUTE_TARGET);
+		// unless a filter changed the route host since it was decorated
+		if (target instanceof RouteTarget && ((RouteTarget) target).getUrl() == host) {
+			return (RouteTarget) target;
+		}
+		return new RouteTarget(host);
 	}
 
 	private InputStream getRequestBody(HttpServletRequest request) {
@@ -363,4 +586,102 @@ public class SimpleHostRoutingFilter extends ZuulFilter {
 		this.helper.addIgnoredHeaders(names);
 	}
 
+	private class RoutePool {
+
+		private final PoolingHttpClientConnectionManager connectionManager;
+
+		private final CloseableHttpClient httpClient;
+
+		private final long timeToLive;
+
+		private final TimeUnit timeUnit;
+
+		private final AtomicInteger requests = new AtomicInteger();
+
+		private volatile long retiredAt = -1;
+
+		private volatile Host host;
+
+		private volatile RequestConfig requestConfig;
+
+		// the values the pool was configured with, as the host may be rebound in place
+		private int maxTotalConnections;
+
+		private int maxPerRouteConnections;
+
+		private Integer socketTimeoutMillis;
+
+		private Integer connectTimeoutMillis;
+
+		RoutePool(PoolingHttpClientConnectionManager connectionManager,
+				CloseableHttpClient httpClient, Host host) {
+			this.connectionManager = connectionManager;
+			this.httpClient = httpClient;
+			this.timeToLive = host.getTimeToLive();
+			this.timeUnit = host.getTimeUnit();
+		}
+
+		synchronized void configure(Host host) {
+			// pool sizes can change without closing connections (the time to live cannot)
+			this.connectionManager.setMaxTotal(host.getMaxTotalConnections());
+			this.connectionManager
+					.setDefaultMaxPerRoute(host.getMaxPerRouteConnections());
+			this.requestConfig = newRequestConfig(host);
+			this.maxTotalConnections = host.getMaxTotalConnections();
+			this.maxPerRouteConnections = host.getMaxPerRouteConnections();
+			this.socketTimeoutMillis = host.getSocketTimeoutMillis();
+			this.connectTimeoutMillis = host.getConnectTimeoutMillis();
+			this.host = host;
+		}
+
+		synchronized boolean isConfiguredFor(Host host) {
+			return this.maxTotalConnections == host.getMaxTotalConnections()
+					&& this.maxPerRouteConnections == host.getMaxPerRouteConnections()
+					&& ObjectUtils.nullSafeEquals(this.socketTimeoutMillis,
+							host.getSocketTimeoutMillis())
+					&& ObjectUtils.nullSafeEquals(this.connectTimeoutMillis,
+							host.getConnectTimeoutMillis());
+		}
+
+		/**
+		 * Whether the pool can be reconfigured for the host, or has to be replaced.
+		 */
+		boolean isCompatibleWith(Host host) {
+			return this.timeToLive == host.getTimeToLive()
+					&& this.timeUnit == host.getTimeUnit();
+		}
+
+		boolean acquire() {
+			this.requests.incrementAndGet();
+			if (this.retiredAt >= 0) {
+				this.requests.decrementAndGet();
+				return false;
+			}
+			return true;
+		}
+
+		void release() {
+			this.requests.decrementAndGet();
+		}
+
+		void retire() {
+			this.retiredAt = System.currentTimeMillis();
+		}
+
+		boolean isIdle() {
+			return this.requests.get() == 0
+					&& this.connectionManager.getTotalStats().getLeased() == 0;
+		}
+
+		void close() {
+			try {
+				this.httpClient.close();
+			}
+			catch (IOException ex) {
+				log.error("error closing client", ex);
+			}
+		}
+
+	}
+
 }
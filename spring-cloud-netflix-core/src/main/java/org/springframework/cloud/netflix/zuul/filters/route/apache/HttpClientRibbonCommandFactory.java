@@ -16,35 +16,111 @@
 
 package org.springframework.cloud.netflix.zuul.filters.route.apache;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.netflix.ribbon.RibbonHttpResponse;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.cloud.netflix.ribbon.apache.RibbonApacheHttpRequest;
 import org.springframework.cloud.netflix.ribbon.apache.RibbonApacheHttpResponse;
 import org.springframework.cloud.netflix.ribbon.apache.RibbonLoadBalancingHttpClient;
+import org.springframework.cloud.netflix.zuul.filters.route.DirectRibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.support.AbstractRibbonCommand;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.ILoadBalancer;
 
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
 /**
+ * {@link RibbonCommandFactory} for the {@link RibbonLoadBalancingHttpClient}. The client
+ * and load balancer of each service are looked up in the ribbon child context once and
+ * cached until that context is refreshed or closed.
+ *
  * @author Christian Lohmann
  */
 @RequiredArgsConstructor
 public class HttpClientRibbonCommandFactory implements
-		RibbonCommandFactory<HttpClientRibbonCommandFactory.HttpClientRibbonCommand> {
+		DirectRibbonCommandFactory<HttpClientRibbonCommandFactory.HttpClientRibbonCommand>,
+		ApplicationListener<ApplicationContextEvent> {
 
 	private final SpringClientFactory clientFactory;
 
+	private final ConcurrentMap<String, ClientBundle> clients = new ConcurrentHashMap<>();
+
 	@Override
 	public HttpClientRibbonCommand create(final RibbonCommandContext context) {
 		final String serviceId = context.getServiceId();
-		final RibbonLoadBalancingHttpClient client = this.clientFactory.getClient(
-				serviceId, RibbonLoadBalancingHttpClient.class);
-		client.setLoadBalancer(this.clientFactory.getLoadBalancer(serviceId));
+		final RibbonLoadBalancingHttpClient client = getClientBundle(serviceId)
+				.getClient();
 
 		return new HttpClientRibbonCommand(serviceId, client, context);
 	}
 
+	@Override
+	public ClientHttpResponse forward(RibbonCommandContext context) throws Exception {
+		RibbonLoadBalancingHttpClient client = getClientBundle(context.getServiceId())
+				.getClient();
+		AbstractRibbonCommand.setContentLength(context);
+		return new RibbonHttpResponse(AbstractRibbonCommand.forward(client,
+				new RibbonApacheHttpRequest(context)));
+	}
+
+	ClientBundle getClientBundle(String serviceId) {
+		ClientBundle bundle = this.clients.get(serviceId);
+		if (bundle == null) {
+			RibbonLoadBalancingHttpClient client = this.clientFactory
+					.getClient(serviceId, RibbonLoadBalancingHttpClient.class);
+			ILoadBalancer loadBalancer = this.clientFactory.getLoadBalancer(serviceId);
+			client.setLoadBalancer(loadBalancer);
+			bundle = new ClientBundle(client, loadBalancer,
+					this.clientFactory.getClientConfig(serviceId));
+			ClientBundle existing = this.clients.putIfAbsent(serviceId, bundle);
+			if (existing != null) {
+				bundle = existing;
+			}
+		}
+		return bundle;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationContextEvent event) {
+		if (!(event instanceof ContextRefreshedEvent)
+				&& !(event instanceof ContextClosedEvent)) {
+			return;
+		}
+		// events of the ribbon child contexts are propagated to the parent, only the
+		// bundle of the service whose context it is was resolved from it (other contexts,
+		// e.g. the parent or the ones of other child context factories, are ignored)
+		String serviceId = event.getApplicationContext().getEnvironment()
+				.getProperty("ribbon.client.name");
+		if (serviceId != null) {
+			this.clients.remove(serviceId);
+		}
+	}
+
+	/**
+	 * The beans resolved from the child context of a service.
+	 */
+	@Data
+	static class ClientBundle {
+
+		private final RibbonLoadBalancingHttpClient client;
+
+		private final ILoadBalancer loadBalancer;
+
+		private final IClientConfig clientConfig;
+
+	}
+
 	class HttpClientRibbonCommand extends AbstractRibbonCommand<RibbonLoadBalancingHttpClient, RibbonApacheHttpRequest, RibbonApacheHttpResponse> {
 
 		public HttpClientRibbonCommand(final String commandKey,
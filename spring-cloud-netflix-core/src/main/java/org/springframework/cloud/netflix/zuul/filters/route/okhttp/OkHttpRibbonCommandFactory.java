@@ -16,13 +16,15 @@
 
 package org.springframework.cloud.netflix.zuul.filters.route.okhttp;
 
+import org.springframework.cloud.netflix.ribbon.RibbonHttpResponse;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.cloud.netflix.ribbon.okhttp.OkHttpLoadBalancingClient;
 import org.springframework.cloud.netflix.ribbon.okhttp.OkHttpRibbonRequest;
 import org.springframework.cloud.netflix.ribbon.okhttp.OkHttpRibbonResponse;
+import org.springframework.cloud.netflix.zuul.filters.route.DirectRibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
-import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandFactory;
 import org.springframework.cloud.netflix.zuul.filters.route.support.AbstractRibbonCommand;
+import org.springframework.http.client.ClientHttpResponse;
 
 import lombok.RequiredArgsConstructor;
 
@@ -31,18 +33,29 @@ import lombok.RequiredArgsConstructor;
  */
 @RequiredArgsConstructor
 public class OkHttpRibbonCommandFactory implements
-		RibbonCommandFactory<OkHttpRibbonCommandFactory.OkHttpRibbonCommand> {
+		DirectRibbonCommandFactory<OkHttpRibbonCommandFactory.OkHttpRibbonCommand> {
 
 	private final SpringClientFactory clientFactory;
 
 	@Override
 	public OkHttpRibbonCommand create(final RibbonCommandContext context) {
 		final String serviceId = context.getServiceId();
+		return new OkHttpRibbonCommand(serviceId, getClient(serviceId), context);
+	}
+
+	@Override
+	public ClientHttpResponse forward(RibbonCommandContext context) throws Exception {
+		OkHttpLoadBalancingClient client = getClient(context.getServiceId());
+		AbstractRibbonCommand.setContentLength(context);
+		return new RibbonHttpResponse(AbstractRibbonCommand.forward(client,
+				new OkHttpRibbonRequest(context)));
+	}
+
+	private OkHttpLoadBalancingClient getClient(String serviceId) {
 		final OkHttpLoadBalancingClient client = this.clientFactory.getClient(
 				serviceId, OkHttpLoadBalancingClient.class);
 		client.setLoadBalancer(this.clientFactory.getLoadBalancer(serviceId));
-
-		return new OkHttpRibbonCommand(serviceId, client, context);
+		return client;
 	}
 
 	class OkHttpRibbonCommand extends AbstractRibbonCommand<OkHttpLoadBalancingClient, OkHttpRibbonRequest, OkHttpRibbonResponse> {
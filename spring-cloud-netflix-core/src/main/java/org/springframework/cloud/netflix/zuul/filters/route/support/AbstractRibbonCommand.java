@@ -17,6 +17,10 @@
 
 package org.springframework.cloud.netflix.zuul.filters.route.support;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.configuration.AbstractConfiguration;
 import org.springframework.cloud.netflix.ribbon.RibbonHttpResponse;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommand;
 import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
@@ -26,6 +30,7 @@ import org.springframework.util.StringUtils;
 import com.netflix.client.AbstractLoadBalancerAwareClient;
 import com.netflix.client.ClientRequest;
 import com.netflix.client.http.HttpResponse;
+import com.netflix.config.ConfigurationManager;
 import com.netflix.config.DynamicIntProperty;
 import com.netflix.config.DynamicPropertyFactory;
 import com.netflix.hystrix.HystrixCommand;
@@ -41,6 +46,8 @@ import com.netflix.zuul.context.RequestContext;
 public abstract class AbstractRibbonCommand<LBC extends AbstractLoadBalancerAwareClient<RQ, RS>, RQ extends ClientRequest, RS extends HttpResponse> extends HystrixCommand<ClientHttpResponse> implements
 		RibbonCommand {
 
+	private static final ConcurrentMap<String, CommandSetter> SETTERS = new ConcurrentHashMap<>();
+
 	protected final LBC client;
 	protected RibbonCommandContext context;
 
@@ -54,17 +61,30 @@ public abstract class AbstractRibbonCommand<LBC extends AbstractLoadBalancerAwar
 		this.context = context;
 	}
 
+	/**
+	 * The setter for a command key, created on first use and cached since commands are
+	 * created for every request.
+	 */
 	protected static Setter getSetter(final String commandKey) {
+		CommandSetter setter = SETTERS.get(commandKey);
+		if (setter == null) {
+			setter = new CommandSetter(commandKey);
+			CommandSetter existing = SETTERS.putIfAbsent(commandKey, setter);
+			if (existing != null) {
+				setter = existing;
+			}
+		}
+		setter.syncMaxSemaphores();
+		return setter.setter;
+	}
 
+	private static Setter createSetter(final String commandKey, int maxSemaphores) {
 		// we want to default to semaphore-isolation since this wraps
 		// 2 others commands that are already thread isolated
 		// @formatter:off
-		final String name = ZuulConstants.ZUUL_EUREKA + commandKey + ".semaphore.maxSemaphores";
-		final DynamicIntProperty value = DynamicPropertyFactory.getInstance()
-				.getIntProperty(name, 100);
 		final HystrixCommandProperties.Setter setter = HystrixCommandProperties .Setter()
 				.withExecutionIsolationStrategy(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE)
-				.withExecutionIsolationSemaphoreMaxConcurrentRequests(value.get());
+				.withExecutionIsolationSemaphoreMaxConcurrentRequests(maxSemaphores);
 		return Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey("RibbonCommand"))
 				.andCommandKey(HystrixCommandKey.Factory.asKey(commandKey + "RibbonCommand"))
 				.andCommandPropertiesDefaults(setter);
@@ -73,16 +93,10 @@ public abstract class AbstractRibbonCommand<LBC extends AbstractLoadBalancerAwar
 
 	@Override
 	protected ClientHttpResponse run() throws Exception {
-		final RequestContext context = RequestContext.getCurrentContext();
-		String contentLengthHeader = context.getRequest().getHeader("Content-Length");
-		if (StringUtils.hasText(contentLengthHeader)) {
-			this.context.setContentLength(new Long(contentLengthHeader));
-		}
+		setContentLength(this.context);
 
 		RQ request = createRequest();
-		RS response = this.client.executeWithLoadBalancer(request);
-
-		context.set("ribbonResponse", response);
+		RS response = forward(this.client, request);
 
 		// Explicitly close the HttpResponse if the Hystrix command timed out to
 		// release the underlying HTTP connection held by the response.
@@ -97,4 +111,76 @@ public abstract class AbstractRibbonCommand<LBC extends AbstractLoadBalancerAwar
 	}
 
 	protected abstract RQ createRequest() throws Exception;
+
+	/**
+	 * Copy the content length of the current request (if known) to the command context.
+	 */
+	public static void setContentLength(RibbonCommandContext context) {
+		String contentLengthHeader = RequestContext.getCurrentContext().getRequest()
+				.getHeader("Content-Length");
+		if (StringUtils.hasText(contentLengthHeader)) {
+			context.setContentLength(new Long(contentLengthHeader));
+		}
+	}
+
+	/**
+	 * Execute the request with the load balancer of the client and store the response
+	 * in the current request context.
+	 */
+	public static <RQ extends ClientRequest, RS extends HttpResponse> RS forward(
+			AbstractLoadBalancerAwareClient<RQ, RS> client, RQ request) throws Exception {
+		RS response = client.executeWithLoadBalancer(request);
+		RequestContext.getCurrentContext().set("ribbonResponse", response);
+		return response;
+	}
+
+	/**
+	 * The cached setter of a command key. Hystrix only reads the property defaults of a
+	 * command key once, so a change of the zuul property is copied to the (dynamic)
+	 * Hystrix property of the command by the next command created, unless that Hystrix
+	 * property was set explicitly.
+	 */
+	private static class CommandSetter {
+
+		private final Setter setter;
+
+		private final DynamicIntProperty maxSemaphores;
+
+		private final String hystrixMaxSemaphores;
+
+		private volatile int applied;
+
+		private Integer written;
+
+		CommandSetter(String commandKey) {
+			this.maxSemaphores = DynamicPropertyFactory.getInstance().getIntProperty(
+					ZuulConstants.ZUUL_EUREKA + commandKey + ".semaphore.maxSemaphores",
+					100);
+			this.hystrixMaxSemaphores = "hystrix.command." + commandKey
+					+ "RibbonCommand.execution.isolation.semaphore.maxConcurrentRequests";
+			this.applied = this.maxSemaphores.get();
+			this.setter = createSetter(commandKey, this.applied);
+		}
+
+		void syncMaxSemaphores() {
+			int value = this.maxSemaphores.get();
+			if (value == this.applied) {
+				return;
+			}
+			synchronized (this) {
+				if (value == this.applied) {
+					return;
+				}
+				AbstractConfiguration config = ConfigurationManager.getConfigInstance();
+				Object current = config.getProperty(this.hystrixMaxSemaphores);
+				if (current == null || current.equals(this.written)) {
+					config.setProperty(this.hystrixMaxSemaphores, value);
+					this.written = value;
+				}
+				this.applied = value;
+			}
+		}
+
+	}
+
 }
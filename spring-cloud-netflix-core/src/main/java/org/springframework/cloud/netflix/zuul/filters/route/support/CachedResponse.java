@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.util.Pair;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * An upstream response held in the {@link ResponseCacheStore}: the status, the headers
+ * that were sent back to the client and the (possibly gzipped) body, together with what
+ * is needed to decide whether it is still fresh, whether it matches the headers of a
+ * request and how to revalidate it. Immutable, so it can be served to any number of
+ * requests at the same time.
+ */
+public class CachedResponse {
+
+	private final int status;
+
+	private final List<Pair<String, String>> headers;
+
+	private final byte[] body;
+
+	private final boolean gzipped;
+
+	private final Long originContentLength;
+
+	private final String etag;
+
+	private final String lastModified;
+
+	private final Map<String, String> varyValues;
+
+	private final long responseTime;
+
+	private final long freshnessMillis;
+
+	CachedResponse(int status, List<Pair<String, String>> headers, byte[] body,
+			boolean gzipped, Long originContentLength, String etag, String lastModified,
+			Map<String, String> varyValues, long responseTime, long freshnessMillis) {
+		this.status = status;
+		this.headers = headers;
+		this.body = body;
+		this.gzipped = gzipped;
+		this.originContentLength = originContentLength;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.varyValues = varyValues;
+		this.responseTime = responseTime;
+		this.freshnessMillis = freshnessMillis;
+	}
+
+	public int getStatus() {
+		return this.status;
+	}
+
+	public List<Pair<String, String>> getHeaders() {
+		return this.headers;
+	}
+
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	public boolean isGzipped() {
+		return this.gzipped;
+	}
+
+	public Long getOriginContentLength() {
+		return this.originContentLength;
+	}
+
+	public String getEtag() {
+		return this.etag;
+	}
+
+	public String getLastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * The values of the request headers named by the Vary response header (lowercase
+	 * names), as they were for the request that fetched this response.
+	 */
+	public Map<String, String> getVaryValues() {
+		return this.varyValues;
+	}
+
+	public long getResponseTime() {
+		return this.responseTime;
+	}
+
+	public long getFreshnessMillis() {
+		return this.freshnessMillis;
+	}
+
+	public boolean isFresh(long now) {
+		return now - this.responseTime < this.freshnessMillis;
+	}
+
+	public boolean hasValidator() {
+		return this.etag != null || this.lastModified != null;
+	}
+
+	/**
+	 * Age in seconds, counted from when the response was fetched or last revalidated.
+	 */
+	public long getAge(long now) {
+		return Math.max(0, now - this.responseTime) / 1000;
+	}
+
+	/**
+	 * Make this the response for the current request, in place of calling the
+	 * downstream service. If the client already has this response (its If-None-Match
+	 * matches the ETag) it only gets a 304 with the headers.
+	 */
+	public void writeTo(RequestContext context, boolean notModified, long now) {
+		if (notModified) {
+			context.setResponseStatusCode(304);
+		}
+		else {
+			context.setResponseStatusCode(this.status);
+			context.setResponseDataStream(new ByteArrayInputStream(this.body));
+			context.setResponseGZipped(this.gzipped);
+			if (this.originContentLength != null) {
+				context.setOriginContentLength(this.originContentLength);
+			}
+		}
+		for (Pair<String, String> header : this.headers) {
+			context.addZuulResponseHeader(header.first(), header.second());
+		}
+		context.addZuulResponseHeader("Age", String.valueOf(getAge(now)));
+	}
+
+	int getWeight() {
+		// the body dominates, the rest is a rough allowance for headers and fields
+		return this.body.length + 64 * (this.headers.size() + 4);
+	}
+
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.http.client.utils.DateUtils;
+import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.util.ObjectUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.netflix.util.Pair;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.util.HTTPRequestUtils;
+
+/**
+ * Bounded in-memory store of upstream responses for the routes that cache responses,
+ * with the HTTP rules for what can be stored and for how long. Only explicit freshness
+ * is used (s-maxage, max-age or Expires, less any Age from upstream), there is no
+ * heuristic freshness. Responses that are private, no-store, set cookies or vary on
+ * everything are never stored. A response without freshness is still stored if it has
+ * a validator, so that it can be revalidated with a conditional request instead of
+ * being fetched again. Up to a few variants are kept per key, selected by the request
+ * headers that their Vary header names.
+ * <p>
+ * The store also coalesces the requests for a key that is missing or stale: the first
+ * one becomes the leader and fetches the response, the others wait (up to a timeout)
+ * for it to be stored instead of all going downstream at once. Keys whose last response
+ * could not be stored are remembered for a short while and not coalesced.
+ */
+public class ResponseCacheStore {
+
+	private static final int MAX_VARIANTS = 8;
+
+	private static final int NOT_STORABLE_KEYS = 10000;
+
+	private static final long NOT_STORABLE_SECONDS = 30;
+
+	private static final Set<String> NOT_REPLACED_BY_REVALIDATION = new HashSet<>(
+			Arrays.asList("content-length", "content-encoding",
+					"transfer-encoding", "age"));
+
+	private final ZuulProperties.ResponseCache properties;
+
+	private final Cache<String, CachedResponse[]> cache;
+
+	private final Cache<String, Boolean> notStorable;
+
+	private final ConcurrentMap<String, CountDownLatch> inFlight = new ConcurrentHashMap<>();
+
+	public ResponseCacheStore(ZuulProperties.ResponseCache properties) {
+		this.properties = properties;
+		this.cache = CacheBuilder.newBuilder().maximumWeight(properties.getMaxSize())
+				.weigher(new Weigher<String, CachedResponse[]>() {
+					@Override
+					public int weigh(String key, CachedResponse[] variants) {
+						long weight = key.length();
+						for (CachedResponse variant : variants) {
+							weight += variant.getWeight();
+						}
+						return (int) Math.min(weight, Integer.MAX_VALUE);
+					}
+				}).build();
+		this.notStorable = CacheBuilder.newBuilder().maximumSize(NOT_STORABLE_KEYS)
+				.expireAfterWrite(NOT_STORABLE_SECONDS, TimeUnit.SECONDS).build();
+	}
+
+	public ZuulProperties.ResponseCache getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * The stored response for this key that matches the current request, fresh or not.
+	 */
+	public CachedResponse get(String key, RequestContext context) {
+		CachedResponse[] variants = this.cache.getIfPresent(key);
+		if (variants == null) {
+			return null;
+		}
+		for (CachedResponse variant : variants) {
+			if (matches(variant, context)) {
+				return variant;
+			}
+		}
+		return null;
+	}
+
+	public void put(String key, CachedResponse response) {
+		List<CachedResponse> variants = new ArrayList<>();
+		variants.add(response);
+		CachedResponse[] existing = this.cache.getIfPresent(key);
+		if (existing != null) {
+			for (CachedResponse variant : existing) {
+				if (variants.size() < MAX_VARIANTS
+						&& !variant.getVaryValues().equals(response.getVaryValues())) {
+					variants.add(variant);
+				}
+			}
+		}
+		this.cache.put(key, variants.toArray(new CachedResponse[variants.size()]));
+		this.notStorable.invalidate(key);
+	}
+
+	public void invalidate(String key) {
+		this.cache.invalidate(key);
+	}
+
+	public long size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Build a cache entry from the upstream response in the current context and its
+	 * (fully read) body, or null if it cannot be stored.
+	 */
+	public CachedResponse createEntry(RequestContext context, byte[] body, long now) {
+		Policy policy = getPolicy(context, now);
+		if (policy == null) {
+			return null;
+		}
+		long freshness = policy.explicit ? policy.freshnessMillis : 0;
+		List<Pair<String, String>> headers = new ArrayList<>();
+		for (Pair<String, String> header : context.getZuulResponseHeaders()) {
+			if (!"age".equalsIgnoreCase(header.first())) {
+				headers.add(header);
+			}
+		}
+		Map<String, String> varyValues = new LinkedHashMap<>();
+		for (String name : policy.vary) {
+			varyValues.put(name, getVaryValue(context, name));
+		}
+		return new CachedResponse(200, Collections.unmodifiableList(headers), body,
+				context.getResponseGZipped(), context.getOriginContentLength(),
+				policy.etag, policy.lastModified,
+				Collections.unmodifiableMap(varyValues), now, freshness);
+	}
+
+	/**
+	 * Whether the upstream response in the current context can be stored, judging by
+	 * the status and headers alone, so the body does not have to be read if it cannot.
+	 */
+	public boolean isStorable(RequestContext context, long now) {
+		return getPolicy(context, now) != null;
+	}
+
+	private Policy getPolicy(RequestContext context, long now) {
+		if (context.getResponseStatusCode() != 200) {
+			return null;
+		}
+		Policy policy = new Policy(context.getOriginResponseHeaders(), now);
+		if (!policy.storable || (policy.explicit ? policy.freshnessMillis : 0) <= 0
+				&& policy.etag == null && policy.lastModified == null) {
+			return null;
+		}
+		return policy;
+	}
+
+	/**
+	 * Remember that the last response for this key could not be stored, so that the
+	 * requests for it are not coalesced for a while (they would only wait for a
+	 * response they cannot use).
+	 */
+	public void markNotStorable(String key) {
+		this.notStorable.put(key, Boolean.TRUE);
+	}
+
+	/**
+	 * Whether a request for a key that has to be fetched should {@link #lead(String)} or
+	 * {@link #await(String)} the other requests for it: coalescing is enabled and the
+	 * last response for the key could be stored.
+	 */
+	public boolean shouldCoalesce(String key) {
+		return this.properties.getCoalesceTimeoutMillis() > 0 && !isNotStorable(key);
+	}
+
+	public boolean isNotStorable(String key) {
+		return this.notStorable.getIfPresent(key) != null;
+	}
+
+	/**
+	 * The stored response updated with the 304 in the current context, which confirmed
+	 * it is still valid, or null if the 304 says it must not be stored any more.
+	 */
+	public CachedResponse revalidate(CachedResponse stale, RequestContext context,
+			long now) {
+		Policy policy = new Policy(context.getOriginResponseHeaders(), now);
+		if (!policy.storable) {
+			return null;
+		}
+		Set<String> replaced = new HashSet<>();
+		List<Pair<String, String>> updates = new ArrayList<>();
+		for (Pair<String, String> header : context.getZuulResponseHeaders()) {
+			String name = header.first().toLowerCase();
+			if (!NOT_REPLACED_BY_REVALIDATION.contains(name)) {
+				replaced.add(name);
+				updates.add(header);
+			}
+		}
+		List<Pair<String, String>> headers = new ArrayList<>();
+		for (Pair<String, String> header : stale.getHeaders()) {
+			if (!replaced.contains(header.first().toLowerCase())) {
+				headers.add(header);
+			}
+		}
+		headers.addAll(updates);
+		return new CachedResponse(stale.getStatus(),
+				Collections.unmodifiableList(headers), stale.getBody(),
+				stale.isGzipped(), stale.getOriginContentLength(),
+				policy.etag != null ? policy.etag : stale.getEtag(),
+				policy.lastModified != null ? policy.lastModified
+						: stale.getLastModified(),
+				stale.getVaryValues(), now,
+				policy.explicit ? policy.freshnessMillis : stale.getFreshnessMillis());
+	}
+
+	/**
+	 * Become the leader for a key that has to be fetched. Returns the latch to pass to
+	 * {@link #complete(String, CountDownLatch)} once the response is stored (or not), or
+	 * null if another request is already fetching it.
+	 */
+	public CountDownLatch lead(String key) {
+		CountDownLatch latch = new CountDownLatch(1);
+		return this.inFlight.putIfAbsent(key, latch) == null ? latch : null;
+	}
+
+	/**
+	 * Wait for the leader of a key (if any) to complete. A leader that does not complete
+	 * in time is assumed to be lost (e.g. a filter failed before it was released) and
+	 * is forgotten, so that the next request can take over.
+	 */
+	public void await(String key) {
+		CountDownLatch latch = this.inFlight.get(key);
+		if (latch == null) {
+			return;
+		}
+		try {
+			if (!latch.await(this.properties.getCoalesceTimeoutMillis(),
+					TimeUnit.MILLISECONDS)) {
+				this.inFlight.remove(key, latch);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void complete(String key, CountDownLatch latch) {
+		this.inFlight.remove(key, latch);
+		latch.countDown();
+	}
+
+	private boolean matches(CachedResponse response, RequestContext context) {
+		for (Map.Entry<String, String> vary : response.getVaryValues().entrySet()) {
+			if (!ObjectUtils.nullSafeEquals(vary.getValue(),
+					getVaryValue(context, vary.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The value of a request header as the downstream service sees it, which is what
+	 * its response varies on. Accept-Encoding is always set by the proxy.
+	 */
+	static String getVaryValue(RequestContext context, String name) {
+		HttpServletRequest request = context.getRequest();
+		if ("accept-encoding".equals(name)) {
+			String accept = request.getHeader(name);
+			boolean gzip = accept != null
+					&& HTTPRequestUtils.getInstance().isGzipped(accept);
+			return context.getBoolean(ProxyRequestHelper.NEGOTIATE_GZIP) && !gzip
+					? "identity" : "gzip";
+		}
+		String value = context.getZuulRequestHeaders().get(name);
+		if (value != null) {
+			return value;
+		}
+		Enumeration<String> values = request.getHeaders(name);
+		if (values == null || !values.hasMoreElements()) {
+			return null;
+		}
+		StringBuilder builder = new StringBuilder(values.nextElement());
+		while (values.hasMoreElements()) {
+			builder.append(',').append(values.nextElement());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * What the caching headers of an upstream response allow.
+	 */
+	private static class Policy {
+
+		private boolean storable = true;
+
+		private boolean explicit;
+
+		private long freshnessMillis;
+
+		private String etag;
+
+		private String lastModified;
+
+		private List<String> vary = new ArrayList<>();
+
+		Policy(List<Pair<String, String>> headers, long now) {
+			StringBuilder cacheControl = new StringBuilder();
+			String expires = null;
+			String date = null;
+			long age = 0;
+			for (Pair<String, String> header : headers) {
+				String name = header.first().toLowerCase();
+				String value = header.second();
+				if ("cache-control".equals(name)) {
+					cacheControl.append(value).append(',');
+				}
+				else if ("expires".equals(name) && expires == null) {
+					expires = value;
+				}
+				else if ("date".equals(name) && date == null) {
+					date = value;
+				}
+				else if ("etag".equals(name) && this.etag == null) {
+					this.etag = value;
+				}
+				else if ("last-modified".equals(name) && this.lastModified == null) {
+					this.lastModified = value;
+				}
+				else if ("age".equals(name)) {
+					age = parseSeconds(value, 0);
+				}
+				else if ("set-cookie".equals(name) || "set-cookie2".equals(name)) {
+					this.storable = false;
+				}
+				else if ("vary".equals(name)) {
+					for (String vary : value.split(",")) {
+						vary = vary.trim().toLowerCase();
+						if ("*".equals(vary)) {
+							this.storable = false;
+						}
+						else if (!vary.isEmpty() && !this.vary.contains(vary)) {
+							this.vary.add(vary);
+						}
+					}
+				}
+			}
+			long maxAge = -1;
+			long sharedMaxAge = -1;
+			boolean noCache = false;
+			for (String directive : cacheControl.toString().split(",")) {
+				directive = directive.trim().toLowerCase();
+				String value = null;
+				int index = directive.indexOf('=');
+				if (index >= 0) {
+					value = directive.substring(index + 1).trim().replace("\"", "");
+					directive = directive.substring(0, index).trim();
+				}
+				if ("no-store".equals(directive) || "private".equals(directive)) {
+					this.storable = false;
+				}
+				else if ("no-cache".equals(directive)) {
+					noCache = true;
+				}
+				else if ("s-maxage".equals(directive)) {
+					sharedMaxAge = parseSeconds(value, 0);
+				}
+				else if ("max-age".equals(directive)) {
+					maxAge = parseSeconds(value, 0);
+				}
+			}
+			if (noCache) {
+				this.explicit = true;
+				this.freshnessMillis = 0;
+			}
+			else if (sharedMaxAge >= 0 || maxAge >= 0) {
+				this.explicit = true;
+				this.freshnessMillis = (sharedMaxAge >= 0 ? sharedMaxAge : maxAge)
+						* 1000;
+			}
+			else if (expires != null) {
+				this.explicit = true;
+				Date expiresDate = DateUtils.parseDate(expires);
+				Date dateDate = date != null ? DateUtils.parseDate(date) : null;
+				// an invalid Expires (like "0") means already expired
+				this.freshnessMillis = expiresDate == null ? 0
+						: expiresDate.getTime()
+								- (dateDate != null ? dateDate.getTime() : now);
+			}
+			if (this.explicit) {
+				this.freshnessMillis = Math.max(0, this.freshnessMillis - age * 1000);
+			}
+		}
+
+		private static long parseSeconds(String value, long defaultValue) {
+			if (value == null) {
+				return defaultValue;
+			}
+			try {
+				return Math.max(0, Long.parseLong(value.trim()));
+			}
+			catch (NumberFormatException ex) {
+				return defaultValue;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+
+import com.netflix.hystrix.util.LongAdder;
+
+/**
+ * Lock-free concurrency limit and circuit breaker for a route that is forwarded without
+ * a Hystrix command. Outcomes are counted with striped counters in a single window that
+ * is reset when it expires, which is coarser than the Hystrix rolling buckets but costs
+ * one counter increment per request. The circuit opens when the window has seen at
+ * least the request volume threshold and the error percentage reaches the threshold.
+ * After the sleep window a single trial request is let through, which closes the
+ * circuit again if it succeeds.
+ */
+public class RouteBulkhead {
+
+	private static final long CLOSED = -1;
+
+	private final ZuulProperties.Bulkhead properties;
+
+	private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+	private final LongAdder successes = new LongAdder();
+
+	private final LongAdder failures = new LongAdder();
+
+	private final AtomicLong windowStart;
+
+	private final AtomicLong openedAt = new AtomicLong(CLOSED);
+
+	private final AtomicBoolean trial = new AtomicBoolean();
+
+	public RouteBulkhead(ZuulProperties.Bulkhead properties) {
+		this.properties = properties;
+		this.windowStart = new AtomicLong(System.currentTimeMillis());
+	}
+
+	public ZuulProperties.Bulkhead getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * Take one of the concurrent request permits, if there is one left. A permit that
+	 * was taken has to be given back with {@link #release()} or
+	 * {@link #complete(Admission, boolean)}.
+	 */
+	public boolean tryAcquire() {
+		int max = this.properties.getMaxConcurrentRequests();
+		while (true) {
+			int current = this.concurrentRequests.get();
+			if (current >= max) {
+				return false;
+			}
+			if (this.concurrentRequests.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Give back a permit without recording an outcome.
+	 */
+	public void release() {
+		this.concurrentRequests.decrementAndGet();
+	}
+
+	/**
+	 * Whether the circuit lets the request through. Only the request that was admitted
+	 * as the {@link Admission#TRIAL} of a half open circuit decides whether it closes,
+	 * so its admission has to be passed back to {@link #complete(Admission, boolean)}.
+	 */
+	public Admission allowRequest() {
+		long opened = this.openedAt.get();
+		if (opened == CLOSED) {
+			return Admission.ALLOWED;
+		}
+		if (System.currentTimeMillis() - opened < this.properties.getSleepWindowMillis()) {
+			return Admission.REJECTED;
+		}
+		return this.trial.compareAndSet(false, true) ? Admission.TRIAL
+				: Admission.REJECTED;
+	}
+
+	public boolean isCircuitOpen() {
+		return this.openedAt.get() != CLOSED;
+	}
+
+	public int getConcurrentRequests() {
+		return this.concurrentRequests.get();
+	}
+
+	/**
+	 * Record the outcome of a request that was let through and give back its permit.
+	 * Requests that were admitted before the circuit opened only count towards the
+	 * current window, whatever the state of the circuit is now.
+	 */
+	public void complete(Admission admission, boolean success) {
+		try {
+			if (admission == Admission.TRIAL) {
+				completeTrial(success);
+			}
+			else if (success) {
+				rollWindow();
+				this.successes.increment();
+			}
+			else {
+				rollWindow();
+				this.failures.increment();
+				checkThresholds();
+			}
+		}
+		finally {
+			release();
+		}
+	}
+
+	private void completeTrial(boolean success) {
+		if (success) {
+			resetCounts(System.currentTimeMillis());
+			this.openedAt.set(CLOSED);
+		}
+		else {
+			this.openedAt.set(System.currentTimeMillis());
+		}
+		this.trial.set(false);
+	}
+
+	private void checkThresholds() {
+		long failures = this.failures.sum();
+		long total = failures + this.successes.sum();
+		if (total >= this.properties.getRequestVolumeThreshold() && failures * 100 >= total
+				* this.properties.getErrorThresholdPercentage()) {
+			this.openedAt.compareAndSet(CLOSED, System.currentTimeMillis());
+		}
+	}
+
+	private void rollWindow() {
+		long now = System.currentTimeMillis();
+		long start = this.windowStart.get();
+		if (now - start >= this.properties.getRollingWindowMillis()
+				&& this.windowStart.compareAndSet(start, now)) {
+			resetCounts(now);
+		}
+	}
+
+	private void resetCounts(long now) {
+		this.windowStart.set(now);
+		this.successes.reset();
+		this.failures.reset();
+	}
+
+	/**
+	 * How a request was admitted by {@link RouteBulkhead#allowRequest()}.
+	 */
+	public enum Admission {
+
+		/**
+		 * The circuit is open, the request must not be sent.
+		 */
+		REJECTED,
+
+		/**
+		 * The circuit is closed.
+		 */
+		ALLOWED,
+
+		/**
+		 * The single trial request of a half open circuit.
+		 */
+		TRIAL;
+
+		public boolean isAllowed() {
+			return this != REJECTED;
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * Immutable, precompiled equivalent of
+ * {@link PatternMatchUtils#simpleMatch(String[], String)} for a fixed set of patterns.
+ * Patterns without wildcards are kept in a hash set, patterns with a single leading or
+ * trailing wildcard are checked with <code>endsWith</code> or <code>startsWith</code>,
+ * and only the remaining patterns are matched character by character. Matching does
+ * not allocate.
+ */
+public final class SimplePatternMatcher {
+
+	private static final String[] NONE = new String[0];
+
+	private final boolean matchAll;
+
+	private final Set<String> exact;
+
+	private final String[] prefixes;
+
+	private final String[] suffixes;
+
+	private final String[] others;
+
+	public SimplePatternMatcher(Collection<String> patterns) {
+		boolean matchAll = false;
+		Set<String> exact = new HashSet<>();
+		List<String> prefixes = new ArrayList<>();
+		List<String> suffixes = new ArrayList<>();
+		List<String> others = new ArrayList<>();
+		if (patterns != null) {
+			for (String pattern : patterns) {
+				if (pattern == null) {
+					continue;
+				}
+				int first = pattern.indexOf('*');
+				int last = pattern.lastIndexOf('*');
+				if (first == -1) {
+					exact.add(pattern);
+				}
+				else if (isAllWildcards(pattern)) {
+					matchAll = true;
+				}
+				else if (first == last && first == 0) {
+					suffixes.add(pattern.substring(1));
+				}
+				else if (first == last && first == pattern.length() - 1) {
+					prefixes.add(pattern.substring(0, first));
+				}
+				else {
+					others.add(pattern);
+				}
+			}
+		}
+		this.matchAll = matchAll;
+		this.exact = exact;
+		this.prefixes = prefixes.toArray(NONE);
+		this.suffixes = suffixes.toArray(NONE);
+		this.others = others.toArray(NONE);
+	}
+
+	public boolean matches(String str) {
+		if (str == null) {
+			return false;
+		}
+		if (this.matchAll || this.exact.contains(str)) {
+			return true;
+		}
+		for (String prefix : this.prefixes) {
+			if (str.startsWith(prefix)) {
+				return true;
+			}
+		}
+		for (String suffix : this.suffixes) {
+			if (str.endsWith(suffix)) {
+				return true;
+			}
+		}
+		for (String pattern : this.others) {
+			if (wildcardMatch(pattern, str)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Same semantics as {@link PatternMatchUtils#simpleMatch(String, String)} (a '*'
+	 * matches any sequence of characters) but without creating substrings.
+	 */
+	private static boolean wildcardMatch(String pattern, String str) {
+		int p = 0;
+		int s = 0;
+		int star = -1;
+		int mark = 0;
+		while (s < str.length()) {
+			if (p < pattern.length() && pattern.charAt(p) == '*') {
+				star = p++;
+				mark = s;
+			}
+			else if (p < pattern.length() && pattern.charAt(p) == str.charAt(s)) {
+				p++;
+				s++;
+			}
+			else if (star != -1) {
+				p = star + 1;
+				s = ++mark;
+			}
+			else {
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*') {
+			p++;
+		}
+		return p == pattern.length();
+	}
+
+	private static boolean isAllWildcards(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if (pattern.charAt(i) != '*') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.netflix.zuul.ZuulRunner;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+import lombok.extern.apachecommons.CommonsLog;
+
+/**
+ * Variant of the Zuul servlet that hands proxied requests over from the container
+ * thread to a separate, bounded pool of routing threads. The "pre" filters run on the
+ * container thread as usual. If they select a downstream host or service, the request
+ * is put into asynchronous mode and the "route" and "post" filters run on the given
+ * executor, with the {@link RequestContext} carried over. The routing thread still
+ * blocks on the downstream call, so this isolates the container threads from slow
+ * services rather than saving threads. Other requests (e.g. forwards) are handled on
+ * the container thread exactly like the {@link com.netflix.zuul.http.ZuulServlet}.
+ * <p>
+ * If the request times out or fails (e.g. the client disconnects) before it has been
+ * routed, the client gets a 504 (or nothing). The request is only completed once the
+ * route filters have returned, as they still use the request, so that wait is bounded
+ * by the downstream timeouts. The downstream response is then discarded: the post
+ * filters are skipped and the downstream stream is closed.
+ */
+@CommonsLog
+public class AsyncZuulServlet extends HttpServlet {
+
+	private static final long serialVersionUID = -3374242278843351500L;
+
+	private static final int QUEUED = 0;
+
+	private static final int ROUTING = 1;
+
+	private static final int RESPONDING = 2;
+
+	private static final int ABORTED = 3;
+
+	private static final int DONE = 4;
+
+	private final transient Executor executor;
+
+	private final long timeout;
+
+	private transient ZuulRunner zuulRunner;
+
+	/**
+	 * @param executor the executor for the route and post filters
+	 * @param timeout the asynchronous request timeout in milliseconds, after which the
+	 * client gets a 504 (Gateway Timeout) if nothing has been sent yet
+	 */
+	public AsyncZuulServlet(Executor executor, long timeout) {
+		this.executor = executor;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public void init(ServletConfig config) throws ServletException {
+		super.init(config);
+		String bufferReqsStr = config.getInitParameter("buffer-requests");
+		boolean bufferReqs = bufferReqsStr != null && bufferReqsStr.equals("true");
+		this.zuulRunner = new ZuulRunner(bufferReqs);
+	}
+
+	@Override
+	protected void service(HttpServletRequest request, HttpServletResponse response)
+			throws ServletException, IOException {
+		try {
+			this.zuulRunner.init(request, response);
+			RequestContext context = RequestContext.getCurrentContext();
+			context.setZuulEngineRan();
+			try {
+				this.zuulRunner.preRoute();
+			}
+			catch (ZuulException ex) {
+				error(ex);
+				postRoute();
+				return;
+			}
+			if (isProxied(context) && request.isAsyncSupported()) {
+				startAsync(request, context);
+				return;
+			}
+			routeAndPostRoute();
+		}
+		catch (Throwable ex) {
+			error(new ZuulException(ex, 500,
+					"UNHANDLED_EXCEPTION_" + ex.getClass().getName()));
+		}
+		finally {
+			// only detaches the context from this thread, a worker may still be using it
+			RequestContext.getCurrentContext().unset();
+		}
+	}
+
+	private boolean isProxied(RequestContext context) {
+		return context.sendZuulResponse() && !context.containsKey("forward.to")
+				&& (context.getRouteHost() != null || context.get("serviceId") != null);
+	}
+
+	private void startAsync(HttpServletRequest request, final RequestContext context) {
+		final AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(this.timeout);
+		final AtomicInteger state = new AtomicInteger(QUEUED);
+		final CountDownLatch routed = new CountDownLatch(1);
+		asyncContext.addListener(new AbortListener(state, routed));
+		Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				if (!state.compareAndSet(QUEUED, ROUTING)) {
+					// timed out while queued, the request has been completed
+					return;
+				}
+				ContextHandover.attach(context);
+				try {
+					routeAndPostRoute(state);
+				}
+				catch (Throwable ex) {
+					if (state.compareAndSet(ROUTING, RESPONDING)
+							|| state.get() == RESPONDING) {
+						error(new ZuulException(ex, 500,
+								"UNHANDLED_EXCEPTION_" + ex.getClass().getName()));
+					}
+				}
+				finally {
+					context.unset();
+					if (state.compareAndSet(RESPONDING, DONE)) {
+						asyncContext.complete();
+					}
+					// an aborted request can be completed now the request is not used
+					routed.countDown();
+				}
+			}
+		};
+		try {
+			this.executor.execute(task);
+		}
+		catch (RejectedExecutionException ex) {
+			log.debug("Async routing executor saturated, routing on container thread");
+			task.run();
+		}
+	}
+
+	private void routeAndPostRoute() {
+		routeAndPostRoute(null);
+	}
+
+	/**
+	 * Run the route filters and then, unless the asynchronous request has already timed
+	 * out or failed, the post filters. The state (null for a synchronous request) moves
+	 * to {@link #RESPONDING} before the response is touched, so the listener and the
+	 * worker never both complete it.
+	 */
+	private void routeAndPostRoute(AtomicInteger state) {
+		ZuulException routeError = null;
+		try {
+			this.zuulRunner.route();
+		}
+		catch (ZuulException ex) {
+			routeError = ex;
+		}
+		if (state != null && !state.compareAndSet(ROUTING, RESPONDING)) {
+			// aborted, the listener completes the request once this returns
+			discardResponse();
+			return;
+		}
+		if (routeError != null) {
+			error(routeError);
+		}
+		postRoute();
+	}
+
+	private void discardResponse() {
+		InputStream stream = RequestContext.getCurrentContext().getResponseDataStream();
+		if (stream != null) {
+			try {
+				// releases the downstream connection
+				stream.close();
+			}
+			catch (IOException ex) {
+				log.debug("Could not close abandoned downstream response", ex);
+			}
+		}
+	}
+
+	private void postRoute() {
+		try {
+			this.zuulRunner.postRoute();
+		}
+		catch (ZuulException ex) {
+			error(ex);
+		}
+	}
+
+	private void error(ZuulException ex) {
+		RequestContext.getCurrentContext().setThrowable(ex);
+		this.zuulRunner.error();
+	}
+
+	/**
+	 * Completes the asynchronous request on a timeout (with a 504 if nothing has been
+	 * sent yet) or an error (e.g. the client went away), unless the worker has already
+	 * started on the response. If the worker is routing the request the listener waits
+	 * for the route filters to return, so the container does not recycle a request they
+	 * are still reading.
+	 */
+	private static class AbortListener implements AsyncListener {
+
+		private final AtomicInteger state;
+
+		private final CountDownLatch routed;
+
+		AbortListener(AtomicInteger state, CountDownLatch routed) {
+			this.state = state;
+			this.routed = routed;
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) throws IOException {
+			if (abort()) {
+				HttpServletResponse response = (HttpServletResponse) event
+						.getAsyncContext().getResponse();
+				if (!response.isCommitted()) {
+					response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+				}
+				event.getAsyncContext().complete();
+			}
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) throws IOException {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) throws IOException {
+			if (abort()) {
+				log.debug("Asynchronous request failed, response will be discarded",
+						event.getThrowable());
+				event.getAsyncContext().complete();
+			}
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) throws IOException {
+		}
+
+		/**
+		 * @return true if the request has to be completed by the listener
+		 */
+		private boolean abort() {
+			if (this.state.compareAndSet(QUEUED, DONE)) {
+				return true;
+			}
+			if (!this.state.compareAndSet(ROUTING, ABORTED)) {
+				return false;
+			}
+			boolean interrupted = false;
+			while (true) {
+				try {
+					this.routed.await();
+					break;
+				}
+				catch (InterruptedException ex) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * Access to the thread local behind {@link RequestContext#getCurrentContext()}, to
+	 * hand a context over to the worker thread (the test context would be shared by
+	 * every thread).
+	 */
+	@SuppressWarnings("serial")
+	private static final class ContextHandover extends RequestContext {
+
+		private ContextHandover() {
+		}
+
+		@SuppressWarnings("unchecked")
+		static void attach(RequestContext context) {
+			((ThreadLocal<RequestContext>) threadLocal).set(context);
+		}
+
+	}
+
+}
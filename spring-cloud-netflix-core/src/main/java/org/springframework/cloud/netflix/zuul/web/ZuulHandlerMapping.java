@@ -16,21 +16,35 @@
 
 package org.springframework.cloud.netflix.zuul.web;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.boot.autoconfigure.web.ErrorController;
+import org.springframework.cloud.netflix.zuul.filters.PathPatternTrie;
 import org.springframework.cloud.netflix.zuul.filters.RefreshableRouteLocator;
 import org.springframework.cloud.netflix.zuul.filters.Route;
 import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
-import org.springframework.util.PatternMatchUtils;
+import org.springframework.cloud.netflix.zuul.util.SimplePatternMatcher;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.web.servlet.handler.AbstractUrlHandlerMapping;
 
 import com.netflix.zuul.context.RequestContext;
 
 /**
  * MVC HandlerMapping that maps incoming request paths to remote services.
+ * <p>
+ * The route paths are registered with the superclass as usual, but requests are
+ * matched against a {@link PathPatternTrie} of the same paths, ordered from the most to
+ * the least specific when it is built, so a lookup neither scans nor sorts all the
+ * patterns. A refresh builds the new trie on a background thread and publishes it with
+ * a single write, so request threads never wait for it or see a partially built one.
  *
  * @author Spencer Gibb
  * @author Dave Syer
@@ -43,23 +57,72 @@ public class ZuulHandlerMapping extends AbstractUrlHandlerMapping {
 
 	private ErrorController errorController;
 
-	private volatile boolean dirty = true;
+	private final Object refreshMonitor = new Object();
+
+	private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+	private Executor refreshExecutor;
+
+	/**
+	 * The route paths that are mapped to the Zuul controller, null until the first
+	 * table has been built.
+	 */
+	private volatile HandlerTable handlers;
+
+	/**
+	 * Matcher for the ignored paths, compiled whenever the handler table is rebuilt.
+	 */
+	private volatile SimplePatternMatcher ignoredPaths;
 
 	public ZuulHandlerMapping(RouteLocator routeLocator, ZuulController zuul) {
 		this.routeLocator = routeLocator;
 		this.zuul = zuul;
 		setOrder(-200);
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("zuul-routes-");
+		executor.setDaemon(true);
+		this.refreshExecutor = executor;
 	}
 
 	public void setErrorController(ErrorController errorController) {
 		this.errorController = errorController;
 	}
 
+	/**
+	 * Set the executor that refreshes the routes after {@link #setDirty(boolean)}
+	 * (default a new daemon thread for each refresh, with at most one pending).
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Refresh the route locator and the handler table in the background. Requests are
+	 * served from the previous table until the new one is published, and refreshes
+	 * requested while one is pending are coalesced.
+	 */
 	public void setDirty(boolean dirty) {
-		this.dirty = dirty;
+		if (!dirty || !this.refreshPending.compareAndSet(false, true)) {
+			return;
+		}
+		this.refreshExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				// changes made from now on need another refresh
+				ZuulHandlerMapping.this.refreshPending.set(false);
+				refresh();
+			}
+		});
+	}
+
+	/**
+	 * Refresh the route locator and the handler table on the calling thread, e.g. when
+	 * the caller needs the new routes to be served as soon as it returns.
+	 */
+	public void refresh() {
 		if (this.routeLocator instanceof RefreshableRouteLocator) {
 			((RefreshableRouteLocator) this.routeLocator).refresh();
 		}
+		registerHandlers();
 	}
 
 	@Override
@@ -69,35 +132,91 @@ public class ZuulHandlerMapping extends AbstractUrlHandlerMapping {
 				&& urlPath.equals(this.errorController.getErrorPath())) {
 			return null;
 		}
-		String[] ignored = this.routeLocator.getIgnoredPaths().toArray(new String[0]);
-		if (PatternMatchUtils.simpleMatch(ignored, urlPath)) {
+		HandlerTable handlers = this.handlers;
+		if (handlers == null) {
+			// Only until the first table has been built
+			handlers = registerHandlers();
+		}
+		if (this.ignoredPaths.matches(urlPath)) {
 			return null;
 		}
 		RequestContext ctx = RequestContext.getCurrentContext();
 		if (ctx.containsKey("forward.to")) {
 			return null;
 		}
-		if (this.dirty) {
-			synchronized (this) {
-				if (this.dirty) {
-					registerHandlers();
-					this.dirty = false;
-				}
+		// the first match is the most specific, as the patterns are ranked
+		String pattern = handlers.trie.matchingPattern(urlPath);
+		if (pattern == null && useTrailingSlashMatch() && urlPath.length() > 1
+				&& urlPath.endsWith("/")) {
+			pattern = handlers.trie
+					.matchingPattern(urlPath.substring(0, urlPath.length() - 1));
+			if (pattern != null) {
+				pattern = pattern + "/";
 			}
 		}
-		return super.lookupHandler(urlPath, request);
+		if (pattern == null) {
+			return null;
+		}
+		if (pattern.equals(urlPath)) {
+			return buildPathExposingHandler(this.zuul, urlPath, urlPath, null);
+		}
+		String pathWithinMapping = getPathMatcher().extractPathWithinPattern(pattern,
+				urlPath);
+		Map<String, String> uriTemplateVariables = null;
+		if (pattern.indexOf('{') >= 0) {
+			uriTemplateVariables = getUrlPathHelper().decodePathVariables(request,
+					getPathMatcher().extractUriTemplateVariables(pattern, urlPath));
+		}
+		return buildPathExposingHandler(this.zuul, pattern, pathWithinMapping,
+				uriTemplateVariables);
 	}
 
-	private void registerHandlers() {
-		Collection<Route> routes = this.routeLocator.getRoutes();
-		if (routes.isEmpty()) {
-			this.logger.warn("No routes found from RouteLocator");
-		}
-		else {
+	private HandlerTable registerHandlers() {
+		synchronized (this.refreshMonitor) {
+			Collection<Route> routes = this.routeLocator.getRoutes();
+			if (routes.isEmpty()) {
+				this.logger.warn("No routes found from RouteLocator");
+			}
+			List<String> paths = new ArrayList<>(routes.size());
 			for (Route route : routes) {
-				registerHandler(route.getFullPath(), this.zuul);
+				paths.add(route.getFullPath());
+			}
+			this.ignoredPaths = new SimplePatternMatcher(
+					this.routeLocator.getIgnoredPaths());
+			HandlerTable handlers = this.handlers;
+			if (handlers != null && handlers.paths.equals(paths)) {
+				// e.g. an incremental refresh without changes
+				return handlers;
+			}
+			Map<String, Object> registered = getHandlerMap();
+			for (String path : paths) {
+				// Only new routes need to be registered (e.g. after an incremental refresh).
+				// The superclass cannot unregister, so removed routes stay listed there,
+				// but they are not matched any more.
+				if (!registered.containsKey(path)) {
+					registerHandler(path, this.zuul);
+				}
 			}
+			List<String> ranked = new ArrayList<>(paths);
+			Collections.sort(ranked, getPathMatcher().getPatternComparator(""));
+			handlers = new HandlerTable(paths,
+					PathPatternTrie.compile(ranked, getPathMatcher()));
+			this.handlers = handlers;
+			return handlers;
 		}
 	}
 
+	private static final class HandlerTable {
+
+		private final List<String> paths;
+
+		private final PathPatternTrie<String> trie;
+
+		private HandlerTable(List<String> paths, PathPatternTrie<String> trie) {
+			this.paths = paths;
+			this.trie = trie;
+		}
+
+	}
+
 }
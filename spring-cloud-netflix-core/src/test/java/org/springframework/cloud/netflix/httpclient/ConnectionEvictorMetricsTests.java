@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionEvictorMetricsTests {
+
+	@Test
+	public void evictionCountByPool() {
+		ConnectionEvictor evictor = mock(ConnectionEvictor.class);
+		when(evictor.getEvictionCounts())
+				.thenReturn(Collections.singletonMap("zuul.host", 3L));
+		List<Metric<?>> metrics = new ArrayList<>(
+				new ConnectionEvictorMetrics(evictor).metrics());
+		assertEquals(1, metrics.size());
+		assertEquals("httpclient.zuul.host.evicted", metrics.get(0).getName());
+		assertEquals(3L, metrics.get(0).getValue());
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.httpclient;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ConnectionEvictorTests {
+
+	private ConnectionEvictor evictor;
+
+	@After
+	public void close() {
+		if (this.evictor != null) {
+			this.evictor.destroy();
+		}
+	}
+
+	@Test
+	public void closesExpiredAndIdleConnections() {
+		this.evictor = new ConnectionEvictor(60000, 1000);
+		HttpClientConnectionManager manager = mock(HttpClientConnectionManager.class);
+		this.evictor.register("foo", manager);
+		this.evictor.evict();
+		verify(manager).closeExpiredConnections();
+		verify(manager).closeIdleConnections(1000, TimeUnit.MILLISECONDS);
+		assertEquals(Long.valueOf(0), this.evictor.getEvictionCounts().get("foo"));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void closesExpiredConnectionsOfLegacyManager() {
+		this.evictor = new ConnectionEvictor(60000, -1);
+		org.apache.http.conn.ClientConnectionManager manager = mock(
+				org.apache.http.conn.ClientConnectionManager.class);
+		this.evictor.register("foo", manager);
+		this.evictor.evict();
+		verify(manager).closeExpiredConnections();
+		verify(manager, never()).closeIdleConnections(anyLong(), any(TimeUnit.class));
+	}
+
+	@Test
+	public void unregisteredPoolNotEvicted() {
+		this.evictor = new ConnectionEvictor(60000, 1000);
+		HttpClientConnectionManager manager = mock(HttpClientConnectionManager.class);
+		this.evictor.register("foo", manager);
+		this.evictor.unregister("foo");
+		this.evictor.evict();
+		verify(manager, never()).closeExpiredConnections();
+		assertTrue(this.evictor.getEvictionCounts().isEmpty());
+	}
+
+	@Test
+	public void tasksRunAfterEviction() {
+		this.evictor = new ConnectionEvictor(60000, -1);
+		Runnable task = mock(Runnable.class);
+		Runnable failing = mock(Runnable.class);
+		doThrow(new IllegalStateException()).when(failing).run();
+		this.evictor.registerTask("failing", failing);
+		this.evictor.registerTask("foo", task);
+		this.evictor.evict();
+		verify(task).run();
+		this.evictor.unregisterTask("foo");
+		this.evictor.evict();
+		verify(task).run();
+	}
+
+}
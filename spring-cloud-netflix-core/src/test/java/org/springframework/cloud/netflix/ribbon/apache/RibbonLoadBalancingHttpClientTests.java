@@ -20,8 +20,10 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.netflix.httpclient.ConnectionEvictor;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -33,9 +35,12 @@ import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -91,6 +96,74 @@ public class RibbonLoadBalancingHttpClientTests {
 		assertThat(result.isRedirectsEnabled(), is(false));
 	}
 
+	@Test
+	public void testRequestConfigUsesReadTimeoutAsSocketTimeout() throws Exception {
+		DefaultClientConfigImpl override = new DefaultClientConfigImpl();
+		override.set(CommonClientConfigKey.ReadTimeout, 1234);
+		override.set(CommonClientConfigKey.IsSecure, false);
+
+		RequestConfig result = getBuiltRequestConfig(UseDefaults.class, override);
+
+		assertThat(result.getSocketTimeout(), is(1234));
+	}
+
+	@Test
+	public void testConnectionPoolConfiguredFromClientConfig() throws Exception {
+		SpringClientFactory factory = new SpringClientFactory();
+		factory.setApplicationContext(
+				new AnnotationConfigApplicationContext(PoolConfig.class));
+		RibbonLoadBalancingHttpClient client = factory.getClient("service",
+				RibbonLoadBalancingHttpClient.class);
+
+		assertThat(client.getConnectionManager().getMaxTotal(), is(100));
+		assertThat(client.getConnectionManager().getDefaultMaxPerRoute(), is(10));
+		assertThat(factory.getClient("service", RibbonLoadBalancingHttpClient.class),
+				is(sameInstance(client)));
+		factory.destroy();
+	}
+
+	@Test
+	public void testConnectionPoolBuiltFromConstructorConfig() throws Exception {
+		DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+		config.loadDefaultValues();
+		config.set(CommonClientConfigKey.MaxTotalConnections, 100);
+		RibbonLoadBalancingHttpClient client = new RibbonLoadBalancingHttpClient(config,
+				null);
+
+		assertThat(client.getConnectionManager().getMaxTotal(), is(100));
+		client.destroy();
+	}
+
+	@Test
+	public void testReconfiguredConnectionPoolRegisteredWithEvictor() throws Exception {
+		DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+		config.loadDefaultValues();
+		RibbonLoadBalancingHttpClient client = new RibbonLoadBalancingHttpClient(config,
+				null);
+		ConnectionEvictor evictor = mock(ConnectionEvictor.class);
+		client.setConnectionEvictor(evictor);
+		PoolingHttpClientConnectionManager previous = client.getConnectionManager();
+
+		config.set(CommonClientConfigKey.MaxTotalConnections, 100);
+		client.initWithNiwsConfig(config);
+
+		assertThat(client.getConnectionManager(), is(not(sameInstance(previous))));
+		verify(evictor).register(any(String.class),
+				same(client.getConnectionManager()));
+		client.destroy();
+	}
+
+	@Configuration
+	protected static class PoolConfig {
+		@Bean
+		public IClientConfig clientConfig() {
+			DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+			config.set(CommonClientConfigKey.MaxTotalConnections, 100);
+			config.set(CommonClientConfigKey.MaxConnectionsPerHost, 10);
+			return config;
+		}
+	}
+
 	@Configuration
 	protected static class UseDefaults {
 
@@ -17,8 +17,22 @@
 package org.springframework.cloud.netflix.ribbon.okhttp;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
 import org.junit.Test;
 import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -30,6 +44,11 @@ import com.netflix.client.config.DefaultClientConfigImpl;
 import com.netflix.client.config.IClientConfig;
 
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
 
 /**
  * @author Spencer Gibb
@@ -83,6 +102,109 @@ public class OkHttpLoadBalancingClientTests {
 		assertThat(result.followRedirects(), is(false));
 	}
 
+	@Test
+	public void testOkHttpClientCachedPerTimeoutConfig() throws Exception {
+		OkHttpLoadBalancingClient client = getClient(UseDefaults.class);
+
+		DefaultClientConfigImpl override = new DefaultClientConfigImpl();
+		override.set(CommonClientConfigKey.ReadTimeout, 1000);
+		DefaultClientConfigImpl other = new DefaultClientConfigImpl();
+		other.set(CommonClientConfigKey.ReadTimeout, 2000);
+
+		OkHttpClient first = client.getOkHttpClient(override, false);
+		OkHttpClient second = client.getOkHttpClient(other, false);
+
+		assertThat(client.getOkHttpClient(override, false), is(sameInstance(first)));
+		assertThat(second, is(not(sameInstance(first))));
+		assertThat(second.readTimeoutMillis(), is(2000));
+		assertThat(second.connectionPool(), is(sameInstance(first.connectionPool())));
+		assertThat(first.connectionPool(), is(sameInstance(client.getConnectionPool())));
+	}
+
+	@Test
+	public void testOkHttpClientOffersHttp2ByDefault() throws Exception {
+		OkHttpClient result = getHttpClient(UseDefaults.class, null);
+
+		assertThat(result.protocols(),
+				is(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)));
+	}
+
+	@Test
+	public void testOkHttpClientNegotiatesHttp2WithServer() throws Exception {
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+		InputStream stream = getClass().getResourceAsStream("/localhost.jks");
+		try {
+			keyStore.load(stream, "password".toCharArray());
+		}
+		finally {
+			stream.close();
+		}
+		KeyManagerFactory keyManagers = KeyManagerFactory
+				.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagers.init(keyStore, "password".toCharArray());
+		TrustManagerFactory trustManagers = TrustManagerFactory
+				.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		trustManagers.init(keyStore);
+		X509TrustManager trustManager = (X509TrustManager) trustManagers
+				.getTrustManagers()[0];
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagers.getKeyManagers(),
+				trustManagers.getTrustManagers(), null);
+
+		MockWebServer server = new MockWebServer();
+		server.useHttps(sslContext.getSocketFactory(), false);
+		server.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+		server.enqueue(new MockResponse().setBody("hello"));
+		server.start();
+		try {
+			OkHttpClient client = getClient(UseDefaults.class)
+					.getOkHttpClient(null, true).newBuilder()
+					.sslSocketFactory(sslContext.getSocketFactory(), trustManager)
+					.hostnameVerifier(new HostnameVerifier() {
+						@Override
+						public boolean verify(String hostname, SSLSession session) {
+							return true;
+						}
+					}).build();
+			Response response = client
+					.newCall(new Request.Builder().url(server.url("/")).build())
+					.execute();
+			response.body().close();
+
+			// OkHttp 3.3 negotiates h2 only with ALPN from Jetty's alpn-boot, without it
+			// the same client falls back to HTTP/1.1
+			assertThat(response.protocol(),
+					is(isAlpnAvailable() ? Protocol.HTTP_2 : Protocol.HTTP_1_1));
+		}
+		finally {
+			server.shutdown();
+		}
+	}
+
+	@Test
+	public void testOkHttpClientHttp2Disabled() throws Exception {
+		OkHttpClient result = getHttpClient(Http1Only.class, null);
+
+		assertThat(result.protocols(), is(Collections.singletonList(Protocol.HTTP_1_1)));
+	}
+
+	private boolean isAlpnAvailable() {
+		try {
+			Class.forName("org.eclipse.jetty.alpn.ALPN", false, null);
+			return true;
+		}
+		catch (ClassNotFoundException ex) {
+			return false;
+		}
+	}
+
+	private OkHttpLoadBalancingClient getClient(Class<?> defaultConfigurationClass) {
+		SpringClientFactory factory = new SpringClientFactory();
+		factory.setApplicationContext(new AnnotationConfigApplicationContext(
+				defaultConfigurationClass));
+		return factory.getClient("service", OkHttpLoadBalancingClient.class);
+	}
+
 	private OkHttpClient getHttpClient(Class<?> defaultConfigurationClass,
 											   IClientConfig configOverride) throws Exception {
 		SpringClientFactory factory = new SpringClientFactory();
@@ -110,6 +232,16 @@ public class OkHttpLoadBalancingClientTests {
 		}
 	}
 
+	@Configuration
+	protected static class Http1Only {
+		@Bean
+		public IClientConfig clientConfig() {
+			DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+			config.set(OkHttpLoadBalancingClient.HTTP2_ENABLED, false);
+			return config;
+		}
+	}
+
 	@Configuration
 	protected static class DoNotFollowRedirects {
 		@Bean
@@ -66,6 +66,16 @@ public class OkHttpRibbonResponseTests {
 		assertThat(httpResponse.getInputStream(), is(notNullValue()));
 	}
 
+	@Test
+	public void testProtocol() throws Exception {
+		URI uri = URI.create("https://example.com");
+		Response response = response(uri).protocol(Protocol.HTTP_2).build();
+
+		OkHttpRibbonResponse httpResponse = new OkHttpRibbonResponse(response, uri);
+
+		assertThat(httpResponse.getProtocol(), is(Protocol.HTTP_2));
+	}
+
 	Response.Builder response(URI uri) {
 		return new Response.Builder()
 				.request(new Request.Builder().url(HttpUrl.get(uri)).build())
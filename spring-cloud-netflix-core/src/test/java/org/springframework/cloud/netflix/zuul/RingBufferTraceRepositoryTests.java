@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.trace.Trace;
+
+import static org.junit.Assert.assertEquals;
+
+public class RingBufferTraceRepositoryTests {
+
+	private RingBufferTraceRepository repository = new RingBufferTraceRepository(2);
+
+	@Test
+	public void newestFirst() {
+		add("foo");
+		add("bar");
+		List<Trace> traces = this.repository.findAll();
+		assertEquals(2, traces.size());
+		assertEquals("bar", traces.get(0).getInfo().get("name"));
+		assertEquals("foo", traces.get(1).getInfo().get("name"));
+	}
+
+	@Test
+	public void oldestOverwritten() {
+		add("foo");
+		add("bar");
+		add("baz");
+		List<Trace> traces = this.repository.findAll();
+		assertEquals(2, traces.size());
+		assertEquals("baz", traces.get(0).getInfo().get("name"));
+		assertEquals("bar", traces.get(1).getInfo().get("name"));
+	}
+
+	@Test
+	public void empty() {
+		assertEquals(0, this.repository.findAll().size());
+	}
+
+	private void add(String name) {
+		this.repository.add(Collections.<String, Object> singletonMap("name", name));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PathPatternTrieTests {
+
+	private AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	@Test
+	public void firstMatchWinsInInsertionOrder() {
+		Map<String, String> patterns = new LinkedHashMap<>();
+		patterns.put("/foo/**", "foo");
+		patterns.put("/foo/bar/**", "bar");
+		patterns.put("/**", "default");
+		PathPatternTrie<String> trie = PathPatternTrie.compile(patterns,
+				this.pathMatcher);
+		assertEquals("foo", trie.match("/foo/bar/1"));
+		assertEquals("foo", trie.match("/foo"));
+		assertEquals("default", trie.match("/baz/1"));
+	}
+
+	@Test
+	public void deeperLiteralPrefixWinsIfAddedFirst() {
+		Map<String, String> patterns = new LinkedHashMap<>();
+		patterns.put("/foo/bar/**", "bar");
+		patterns.put("/foo/**", "foo");
+		PathPatternTrie<String> trie = PathPatternTrie.compile(patterns,
+				this.pathMatcher);
+		assertEquals("bar", trie.match("/foo/bar/1"));
+		assertEquals("foo", trie.match("/foo/baz/1"));
+	}
+
+	@Test
+	public void wildcardSegments() {
+		Map<String, String> patterns = new LinkedHashMap<>();
+		patterns.put("/api/*/items/**", "items");
+		patterns.put("/api/v?/**", "versioned");
+		patterns.put("/api/{name}", "named");
+		PathPatternTrie<String> trie = PathPatternTrie.compile(patterns,
+				this.pathMatcher);
+		assertEquals("items", trie.match("/api/x/items/1"));
+		assertEquals("versioned", trie.match("/api/v1/other"));
+		assertEquals("named", trie.match("/api/thing"));
+		assertNull(trie.match("/other"));
+	}
+
+	@Test
+	public void literalPattern() {
+		Map<String, String> patterns = new LinkedHashMap<>();
+		patterns.put("/foo", "foo");
+		PathPatternTrie<String> trie = PathPatternTrie.compile(patterns,
+				this.pathMatcher);
+		assertEquals("foo", trie.match("/foo"));
+		assertNull(trie.match("/foo/bar"));
+	}
+
+	@Test
+	public void patterns() {
+		PathPatternTrie<String> trie = PathPatternTrie
+				.compile(Arrays.asList("/admin/**", "/**/*.jsp"), this.pathMatcher);
+		assertTrue(trie.matches("/admin/env"));
+		assertTrue(trie.matches("/foo/index.jsp"));
+		assertEquals("/**/*.jsp", trie.matchingPattern("/foo/index.jsp"));
+		assertFalse(trie.matches("/foo/index.html"));
+	}
+
+	@Test
+	public void empty() {
+		PathPatternTrie<String> trie = PathPatternTrie
+				.compile(new LinkedHashMap<String, String>(), this.pathMatcher);
+		assertTrue(trie.isEmpty());
+		assertNull(trie.match("/foo"));
+	}
+
+}
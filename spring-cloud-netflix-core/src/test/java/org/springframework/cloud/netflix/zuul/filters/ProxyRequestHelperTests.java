@@ -17,7 +17,13 @@
 package org.springframework.cloud.netflix.zuul.filters;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -86,6 +92,40 @@ public class ProxyRequestHelperTests {
 
 	}
 
+	@Test
+	public void debugNotSampled() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContent("{}".getBytes());
+		RequestContext.getCurrentContext().setRequest(request);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		this.traceRepository = new InMemoryTraceRepository();
+		helper.setTraces(this.traceRepository);
+		helper.setTraceSamplingRate(0);
+
+		Map<String, Object> info = helper.debug("POST", "http://example.com",
+				new HttpHeaders(), new LinkedMultiValueMap<String, String>(),
+				request.getInputStream());
+		helper.appendDebug(info, 200, new HttpHeaders());
+		assertThat(this.traceRepository.findAll(), hasSize(0));
+		assertThat(request.getInputStream().read(), is((int) '{'));
+	}
+
+	@Test
+	public void debugDisabledForRoute() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		RequestContext.getCurrentContext().setRequest(request);
+		RequestContext.getCurrentContext().set(ProxyRequestHelper.TRACE_DISABLED, true);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		this.traceRepository = new InMemoryTraceRepository();
+		helper.setTraces(this.traceRepository);
+
+		helper.debug("GET", "http://example.com", new HttpHeaders(),
+				new LinkedMultiValueMap<String, String>(), null);
+		assertThat(this.traceRepository.findAll(), hasSize(0));
+	}
+
 	@Test
 	public void shouldDebugBodyDisabled() throws Exception {
 		RequestContext context = RequestContext.getCurrentContext();
@@ -202,6 +242,32 @@ public class ProxyRequestHelperTests {
 		assertThat(acceptEncodings, contains("gzip"));
 	}
 
+	@Test
+	public void buildZuulRequestHeadersNegotiatesIdentityIfGzipNotAccepted() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("accept-encoding", "deflate");
+		RequestContext.getCurrentContext().set(ProxyRequestHelper.NEGOTIATE_GZIP, true);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+
+		MultiValueMap<String, String> headers = helper.buildZuulRequestHeaders(request);
+
+		assertThat(headers.get("accept-encoding"), contains("identity"));
+	}
+
+	@Test
+	public void buildZuulRequestHeadersNegotiatesGzipIfAccepted() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("accept-encoding", "gzip, deflate");
+		RequestContext.getCurrentContext().set(ProxyRequestHelper.NEGOTIATE_GZIP, true);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+
+		MultiValueMap<String, String> headers = helper.buildZuulRequestHeaders(request);
+
+		assertThat(headers.get("accept-encoding"), contains("gzip"));
+	}
+
 	@Test
 	public void setResponseLowercase() throws IOException {
 		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
@@ -238,6 +304,57 @@ public class ProxyRequestHelperTests {
 		assertTrue(context.getResponseGZipped());
 	}
 
+	@Test
+	public void setResponseFiltersIgnoredHeaders() throws IOException {
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setRequest(new MockHttpServletRequest("GET", "/"));
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		helper.setIgnoredHeaders(Collections.singleton("X-Ignored"));
+		helper.addIgnoredHeaders("Set-Cookie");
+
+		MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
+		headers.add("x-ignored", "foo");
+		headers.add("Set-Cookie", "bar");
+		headers.add("Content-Length", "42");
+		headers.add("X-Included", "baz");
+
+		helper.setResponse(200, null, headers);
+		assertThat(context.getOriginResponseHeaders(), hasSize(4));
+		assertThat(context.getOriginContentLength(), is(42L));
+		assertThat(context.getZuulResponseHeaders(), hasSize(1));
+		assertThat(context.getZuulResponseHeaders().get(0).first(), is("X-Included"));
+	}
+
+	@Test
+	public void ignoredHeadersCaseInsensitive() {
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		helper.addIgnoredHeaders("Authorization", "x-custom");
+		assertThat(helper.isIncludedHeader("authorization"), is(false));
+		assertThat(helper.isIncludedHeader("AUTHORIZATION"), is(false));
+		assertThat(helper.isIncludedHeader("X-Custom"), is(false));
+		assertThat(helper.isIncludedHeader("Accept"), is(true));
+		assertThat(helper.isIncludedHeader("Transfer-Encoding"), is(false));
+	}
+
+	@Test
+	public void addIgnoredHeadersCopiesSharedSet() {
+		Set<String> shared = Collections.unmodifiableSet(
+				new HashSet<>(Arrays.asList("x-foo", "x-bar")));
+		RequestContext context = RequestContext.getCurrentContext();
+		context.set(ProxyRequestHelper.IGNORED_HEADERS, shared);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		helper.addIgnoredHeaders("X-Foo");
+		assertThat(context.get(ProxyRequestHelper.IGNORED_HEADERS),
+				is((Object) shared));
+
+		helper.addIgnoredHeaders("X-Baz");
+		assertThat(shared, hasSize(2));
+		assertThat(helper.isIncludedHeader("X-Baz"), is(false));
+		assertThat(helper.isIncludedHeader("X-Bar"), is(false));
+	}
+
 	@Test
 	public void getQueryString() {
 		MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
@@ -259,6 +376,58 @@ public class ProxyRequestHelperTests {
 		assertThat(queryString, is("?wsdl"));
 	}
 
+	@Test
+	public void getQueryStringEncodesSpecialCharacters() {
+		MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+		params.add("a b", "c&d=e");
+		params.add("f", "g/h?i");
+
+		String queryString = new ProxyRequestHelper().getQueryString(params);
+
+		assertThat(queryString, is("?a%20b=c%26d%3De&f=g/h?i"));
+	}
+
+	@Test
+	public void getQueryStringPassesRequestQueryThrough() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setQueryString("b=x%2Fy&a=1&b=2");
+		RequestContext.getCurrentContext().setRequest(request);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		MultiValueMap<String, String> params = helper.buildZuulRequestQueryParams(request);
+
+		assertThat(helper.getQueryString(params), is("?b=x%2Fy&a=1&b=2"));
+	}
+
+	@Test
+	public void getQueryStringEncodesChangedParams() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setQueryString("a=1");
+		RequestContext.getCurrentContext().setRequest(request);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		MultiValueMap<String, String> params = helper.buildZuulRequestQueryParams(request);
+		params.add("b", "2 3");
+
+		assertThat(helper.getQueryString(params), is("?a=1&b=2%203"));
+	}
+
+	@Test
+	public void getQueryStringEncodesParamsSetByFilter() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.setQueryString("a=1");
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setRequest(request);
+		Map<String, List<String>> filtered = new LinkedHashMap<>();
+		filtered.put("a", Collections.singletonList("2"));
+		context.setRequestQueryParams(filtered);
+
+		ProxyRequestHelper helper = new ProxyRequestHelper();
+		MultiValueMap<String, String> params = helper.buildZuulRequestQueryParams(request);
+
+		assertThat(helper.getQueryString(params), is("?a=2"));
+	}
+
 	@Test
 	public void buildZuulRequestURIWithUTF8() throws Exception {
 		String encodedURI = "/resource/esp%C3%A9cial-char";
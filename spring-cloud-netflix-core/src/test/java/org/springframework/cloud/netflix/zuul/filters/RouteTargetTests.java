@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters;
+
+import org.junit.Test;
+import org.springframework.util.StringUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RouteTargetTests {
+
+	@Test
+	public void parsedLocation() {
+		RouteTarget target = RouteTarget.forLocation("https://example.com:8443/api/");
+		assertEquals("example.com", target.getHttpHost().getHostName());
+		assertEquals(8443, target.getHttpHost().getPort());
+		assertEquals("https", target.getHttpHost().getSchemeName());
+		assertEquals("/api/", target.getBasePath());
+		assertEquals("/api/foo/bar", target.getPath("/foo/bar"));
+	}
+
+	@Test
+	public void serviceIdHasNoTarget() {
+		assertNull(RouteTarget.forLocation("users"));
+		assertNull(RouteTarget.forLocation("forward:/users"));
+		assertNull(RouteTarget.forLocation("http://bad:port"));
+	}
+
+	@Test
+	public void normalPathReturnedAsIs() {
+		String path = "/api/users/1.json";
+		assertSame(path, RouteTarget.normalizePath(path));
+	}
+
+	@Test
+	public void normalizedLikeCleanPath() {
+		for (String path : new String[] { "//api///users//", "/api/./users",
+				"/api/../users", "/api/users/..", "api\\users//1", "/.hidden/..file",
+				"../api//users", "/a/b/./../c//.", "./a", "/..." }) {
+			assertEquals(path,
+					StringUtils.cleanPath(path.replaceAll("/{2,}", "/")),
+					RouteTarget.normalizePath(path));
+		}
+	}
+
+}
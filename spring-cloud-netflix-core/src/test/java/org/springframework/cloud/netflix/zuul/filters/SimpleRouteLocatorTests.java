@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class SimpleRouteLocatorTests {
+
+	private ZuulProperties properties = new ZuulProperties();
+
+	private SimpleRouteLocator routeLocator;
+
+	@Before
+	public void init() {
+		this.properties.getRouteCache().setEnabled(true);
+		this.properties.getRoutes().put("foo", new ZuulRoute("/foo/**"));
+		this.properties.init();
+		this.routeLocator = new SimpleRouteLocator("/", this.properties);
+	}
+
+	@Test
+	public void matchingRouteCached() {
+		Route route = this.routeLocator.getMatchingRoute("/foo/1");
+		assertEquals("foo", route.getLocation());
+		assertEquals(route, this.routeLocator.getMatchingRoute("/foo/1"));
+		assertEquals(1, this.routeLocator.getRouteCacheStats().hitCount());
+		assertEquals(1, this.routeLocator.getRouteCacheSize());
+	}
+
+	@Test
+	public void cachedRouteNotShared() {
+		Route route = this.routeLocator.getMatchingRoute("/foo/1");
+		route.setPath("/changed");
+		route.getSensitiveHeaders().add("x-changed");
+		Route cached = this.routeLocator.getMatchingRoute("/foo/1");
+		assertNotSame(route, cached);
+		assertEquals("/1", cached.getPath());
+		assertFalse(cached.getSensitiveHeaders().contains("x-changed"));
+	}
+
+	@Test
+	public void routeCacheDiscardedOnRefresh() {
+		assertEquals("foo", this.routeLocator.getMatchingRoute("/foo/1").getLocation());
+		this.properties.getRoutes().put("foo", new ZuulRoute("/foo/**", "bar"));
+		this.routeLocator.doRefresh();
+		assertEquals(0, this.routeLocator.getRouteCacheSize());
+		assertEquals("bar", this.routeLocator.getMatchingRoute("/foo/1").getLocation());
+		assertEquals(2, this.routeLocator.getRouteCacheStats().missCount());
+	}
+
+	@Test
+	public void routeCacheDisabled() {
+		this.properties.getRouteCache().setEnabled(false);
+		SimpleRouteLocator routeLocator = new SimpleRouteLocator("/", this.properties);
+		assertEquals("foo", routeLocator.getMatchingRoute("/foo/1").getLocation());
+		assertNull(routeLocator.getRouteCacheStats());
+		assertEquals(0, routeLocator.getRouteCacheSize());
+	}
+
+}
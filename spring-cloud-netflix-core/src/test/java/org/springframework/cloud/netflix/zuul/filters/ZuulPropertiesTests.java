@@ -77,4 +77,13 @@ public class ZuulPropertiesTests {
 		assertFalse(this.zuul.getSensitiveHeaders().contains("Cookie"));
 	}
 
+	@Test
+	public void routeNegotiatesGzipByGlobalDefault() {
+		this.zuul.setNegotiateGzip(true);
+		ZuulRoute route = new ZuulRoute("foo");
+		assertTrue(route.getRoute("", this.zuul.isNegotiateGzip()).isNegotiateGzip());
+		route.setNegotiateGzip(false);
+		assertFalse(route.getRoute("", this.zuul.isNegotiateGzip()).isNegotiateGzip());
+	}
+
 }
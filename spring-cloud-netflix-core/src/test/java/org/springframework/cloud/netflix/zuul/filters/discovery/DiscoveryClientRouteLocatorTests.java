@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.netflix.zuul.filters.discovery;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -601,6 +602,62 @@ public class DiscoveryClientRouteLocatorTests {
 		assertMapping(routesMap, MYSERVICE);
 	}
 
+	@Test
+	public void testIncrementalRefreshAddsAndRemovesServices() {
+		this.properties.setIncrementalRefresh(true);
+		this.properties.getRoutes().put(ASERVICE, new ZuulRoute("/**", ASERVICE));
+		given(this.discovery.getServices())
+				.willReturn(Arrays.asList(MYSERVICE, IGNOREDSERVICE));
+		DiscoveryClientRouteLocator routeLocator = new DiscoveryClientRouteLocator("/",
+				this.discovery, this.properties);
+		List<Route> routesMap = routeLocator.getRoutes();
+		assertMapping(routesMap, MYSERVICE);
+		assertMapping(routesMap, IGNOREDSERVICE);
+
+		given(this.discovery.getServices())
+				.willReturn(Arrays.asList(MYSERVICE, "newservice"));
+		routeLocator.refresh();
+		routesMap = routeLocator.getRoutes();
+		assertMapping(routesMap, MYSERVICE);
+		assertMapping(routesMap, "newservice");
+		assertNull("route was not removed for " + IGNOREDSERVICE,
+				getRoute(routesMap, getMapping(IGNOREDSERVICE)));
+		assertEquals("default route is not last", "/**",
+				routesMap.get(routesMap.size() - 1).getFullPath());
+	}
+
+	@Test
+	public void testIncrementalRefreshWithPrefix() {
+		this.properties.setIncrementalRefresh(true);
+		this.properties.setPrefix("/proxy");
+		given(this.discovery.getServices())
+				.willReturn(Collections.singletonList(MYSERVICE));
+		DiscoveryClientRouteLocator routeLocator = new DiscoveryClientRouteLocator("/",
+				this.discovery, this.properties);
+		routeLocator.getRoutes();
+		given(this.discovery.getServices())
+				.willReturn(Arrays.asList(MYSERVICE, ASERVICE));
+		routeLocator.refresh();
+		List<Route> routesMap = routeLocator.getRoutes();
+		assertEquals(2, routesMap.size());
+		assertMapping(routesMap, ASERVICE, "proxy/" + ASERVICE);
+	}
+
+	@Test
+	public void testIncrementalRefreshFallsBackToFullRefreshOnConfigChange() {
+		this.properties.setIncrementalRefresh(true);
+		given(this.discovery.getServices())
+				.willReturn(Collections.singletonList(MYSERVICE));
+		DiscoveryClientRouteLocator routeLocator = new DiscoveryClientRouteLocator("/",
+				this.discovery, this.properties);
+		routeLocator.getRoutes();
+		this.properties.setIgnoredServices(Collections.singleton(MYSERVICE));
+		routeLocator.refresh();
+		List<Route> routesMap = routeLocator.getRoutes();
+		assertNull("routes did not ignore " + MYSERVICE,
+				getRoute(routesMap, getMapping(MYSERVICE)));
+	}
+
 	@Test
 	public void testRegExServiceRouteMapperNoServiceIdMatches() {
 		given(this.discovery.getServices())
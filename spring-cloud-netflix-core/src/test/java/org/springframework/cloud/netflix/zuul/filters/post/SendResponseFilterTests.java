@@ -17,6 +17,9 @@
 package org.springframework.cloud.netflix.zuul.filters.post;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
 import javax.servlet.http.HttpServletRequest;
 
 import com.netflix.zuul.context.RequestContext;
@@ -64,6 +67,41 @@ public class SendResponseFilterTests {
 		runFilter(characterEncoding, content, true);
 	}
 
+	@Test
+	public void largeStreamCopiedWithReusedBuffer() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			builder.append("0123456789");
+		}
+		String content = builder.toString();
+		runFilter("UTF-8", content, true);
+		// and again on the same thread, reusing the grown buffer
+		setTestRequestcontext();
+		runFilter("UTF-8", content, true);
+	}
+
+	@Test
+	public void gzippedResponseInflatedForClientAndCountedByRoute() throws Exception {
+		String content = "hello world";
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+		gzip.write(content.getBytes("UTF-8"));
+		gzip.close();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContext context = new RequestContext();
+		context.setRequest(new MockHttpServletRequest());
+		context.setResponse(response);
+		context.setResponseDataStream(new ByteArrayInputStream(gzipped.toByteArray()));
+		context.setResponseGZipped(true);
+		context.set("proxy", "foo");
+		RequestContext.testSetCurrentContext(context);
+		SendResponseFilter filter = new SendResponseFilter();
+		filter.run();
+		assertThat("wrong content", response.getContentAsString(), equalTo(content));
+		assertThat(filter.getInflatedBytes().get("foo"),
+				equalTo((long) content.length()));
+	}
+
 	private void runFilter(String characterEncoding, String content, boolean streamContent) throws Exception {
 		MockHttpServletResponse response = new MockHttpServletResponse();
 		SendResponseFilter filter = createFilter(content, characterEncoding, response, streamContent);
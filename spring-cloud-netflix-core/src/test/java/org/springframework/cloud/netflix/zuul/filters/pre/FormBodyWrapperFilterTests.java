@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.pre;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockMultipartHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.http.HttpServletRequestWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FormBodyWrapperFilterTests {
+
+	private FormBodyWrapperFilter filter = new FormBodyWrapperFilter();
+
+	private MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+
+	@Before
+	public void init() {
+		this.request.setContentType("application/x-www-form-urlencoded");
+		this.request.addParameter("foo", "bar");
+		RequestContext ctx = RequestContext.getCurrentContext();
+		ctx.clear();
+		ctx.setRequest(this.request);
+	}
+
+	@Test
+	public void servlet30WrapperReplaced() throws Exception {
+		new Servlet30WrapperFilter().run();
+		HttpServletRequest wrapped = RequestContext.getCurrentContext().getRequest();
+		assertTrue(this.filter.shouldFilter());
+		this.filter.run();
+		HttpServletRequest request = RequestContext.getCurrentContext().getRequest();
+		assertNotSame(wrapped, request);
+		assertSame(this.request, ((Servlet30RequestWrapper) request).getRequest());
+		assertEquals("foo=bar", StreamUtils.copyToString(request.getInputStream(),
+				Charset.forName("UTF-8")));
+		assertTrue(RequestContext.getCurrentContext().getZuulRequestHeaders()
+				.get("content-type").startsWith("application/x-www-form-urlencoded"));
+	}
+
+	@Test
+	public void zuulWrapperWrapped() throws Exception {
+		HttpServletRequestWrapper wrapped = new HttpServletRequestWrapper(this.request);
+		RequestContext.getCurrentContext().setRequest(wrapped);
+		this.filter.run();
+		HttpServletRequest request = RequestContext.getCurrentContext().getRequest();
+		assertSame(wrapped, ((Servlet30RequestWrapper) request).getRequest());
+		assertEquals(7, request.getContentLength());
+	}
+
+	@Test
+	public void multipartBodyCallsReadListener() throws Exception {
+		MockMultipartHttpServletRequest multipart = new MockMultipartHttpServletRequest();
+		multipart.setContentType("multipart/form-data");
+		multipart.addParameter("foo", "bar");
+		multipart.addFile(new MockMultipartFile("file", "foo.txt", "text/plain",
+				"file content".getBytes()));
+		RequestContext.getCurrentContext().setRequest(multipart);
+		this.filter.run();
+		final ServletInputStream input = RequestContext.getCurrentContext().getRequest()
+				.getInputStream();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		final List<String> events = new ArrayList<>();
+		input.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				events.add("data");
+				byte[] buffer = new byte[16];
+				int read;
+				while (input.isReady() && (read = input.read(buffer)) != -1) {
+					body.write(buffer, 0, read);
+				}
+			}
+
+			@Override
+			public void onAllDataRead() throws IOException {
+				events.add("done");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+		});
+		assertEquals(Arrays.asList("data", "done"), events);
+		assertTrue(body.toString("UTF-8").contains("file content"));
+	}
+
+}
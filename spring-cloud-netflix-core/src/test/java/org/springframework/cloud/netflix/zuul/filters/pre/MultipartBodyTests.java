@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.pre;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.assertEquals;
+
+public class MultipartBodyTests {
+
+	@Test
+	public void fieldsAndFilesEncoded() throws Exception {
+		MultipartBody body = new MultipartBody();
+		body.addField("foo", "bar");
+		body.addFile("file", new MockMultipartFile("file", "foo.txt", "text/plain",
+				"file content".getBytes()));
+		body.finish();
+		String boundary = body.getBoundary();
+		String expected = "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"foo\"\r\n"
+				+ "Content-Type: text/plain;charset=ISO-8859-1\r\n" + "\r\n" + "bar\r\n"
+				+ "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n"
+				+ "Content-Type: text/plain\r\n" + "\r\n" + "file content\r\n" + "--"
+				+ boundary + "--\r\n";
+		InputStream input = body.getInputStream();
+		byte[] content = StreamUtils.copyToByteArray(input);
+		assertEquals(expected, new String(content, "UTF-8"));
+		assertEquals(content.length, body.getLength());
+		// the body can be read again
+		assertEquals(expected, StreamUtils.copyToString(body.getInputStream(),
+				Charset.forName("UTF-8")));
+	}
+
+}
@@ -27,9 +27,11 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.cloud.netflix.zuul.filters.RouteTarget;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties.ZuulRoute;
 import org.springframework.cloud.netflix.zuul.filters.discovery.DiscoveryClientRouteLocator;
+import org.springframework.cloud.netflix.zuul.filters.route.SimpleHostRoutingFilter;
 import org.springframework.mock.web.MockHttpServletRequest;
 
 import com.netflix.util.Pair;
@@ -37,6 +39,7 @@ import com.netflix.zuul.context.RequestContext;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -112,6 +115,31 @@ public class PreDecorationFilterTests {
 				getHeader(ctx.getOriginResponseHeaders(), "x-zuul-serviceid"));
 	}
 
+	@Test
+	public void routeNegotiatesGzip() throws Exception {
+		this.request.setRequestURI("/foo/1");
+		ZuulRoute route = new ZuulRoute("foo", "/foo/**", "foo", null, false, null,
+				null);
+		route.setNegotiateGzip(true);
+		this.routeLocator.addRoute(route);
+		this.filter.run();
+		RequestContext ctx = RequestContext.getCurrentContext();
+		assertEquals(true, ctx.getBoolean(ProxyRequestHelper.NEGOTIATE_GZIP));
+	}
+
+	@Test
+	public void globalNegotiateGzipOverriddenByRoute() throws Exception {
+		this.properties.setNegotiateGzip(true);
+		this.request.setRequestURI("/foo/1");
+		ZuulRoute route = new ZuulRoute("foo", "/foo/**", "foo", null, false, null,
+				null);
+		route.setNegotiateGzip(false);
+		this.routeLocator.addRoute(route);
+		this.filter.run();
+		RequestContext ctx = RequestContext.getCurrentContext();
+		assertEquals(false, ctx.getBoolean(ProxyRequestHelper.NEGOTIATE_GZIP));
+	}
+
 	@Test
 	public void prefixRouteWithPrefixHeaderConcatsHeader() throws Exception {
 		this.properties.setPrefix("/api");
@@ -378,6 +406,37 @@ public class PreDecorationFilterTests {
 				sensitiveHeaders.containsAll(Arrays.asList("x-bar", "x-foo")));
 	}
 	
+	@Test
+	public void ignoredHeadersSharedByRouteRequests() throws Exception {
+		this.properties.setSensitiveHeaders(Collections.singleton("X-Bar"));
+		this.properties.setIgnoredHeaders(Collections.singleton("X-Baz"));
+		this.request.setRequestURI("/foo/1");
+		this.routeLocator.addRoute("/foo/**", "foo");
+		this.filter.run();
+		RequestContext ctx = RequestContext.getCurrentContext();
+		Object first = ctx.get(ProxyRequestHelper.IGNORED_HEADERS);
+		assertEquals(new HashSet<>(Arrays.asList("x-bar", "x-baz")), first);
+		ctx.clear();
+		ctx.setRequest(this.request);
+		this.filter.run();
+		assertSame(first, ctx.get(ProxyRequestHelper.IGNORED_HEADERS));
+	}
+
+	@Test
+	public void urlRouteTargetParsedOnce() throws Exception {
+		this.request.setRequestURI("/foo/1");
+		this.routeLocator.addRoute("/foo/**", "http://example.com/foo");
+		this.filter.run();
+		RequestContext ctx = RequestContext.getCurrentContext();
+		RouteTarget target = (RouteTarget) ctx.get(SimpleHostRoutingFilter.ROUTE_TARGET);
+		assertSame(target.getUrl(), ctx.getRouteHost());
+		assertEquals("example.com", target.getHttpHost().getHostName());
+		ctx.clear();
+		ctx.setRequest(this.request);
+		this.filter.run();
+		assertSame(target, ctx.get(SimpleHostRoutingFilter.ROUTE_TARGET));
+	}
+
 	@Test
 	public void urlProperlyDecodedWhenCharacterEncodingIsSet() throws Exception {
 		this.request.setCharacterEncoding("UTF-8");
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.post.ResponseCachePostFilter;
+import org.springframework.cloud.netflix.zuul.filters.route.support.ResponseCacheStore;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.netflix.zuul.context.RequestContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheRouteFilterTests {
+
+	private ZuulProperties.ResponseCache properties = new ZuulProperties.ResponseCache();
+
+	private ResponseCacheStore store = new ResponseCacheStore(this.properties);
+
+	private ResponseCacheRouteFilter routeFilter = new ResponseCacheRouteFilter(
+			this.store);
+
+	private ResponseCachePostFilter postFilter = new ResponseCachePostFilter(this.store);
+
+	@Before
+	public void init() {
+		newRequest();
+	}
+
+	@After
+	public void reset() {
+		RequestContext.getCurrentContext().clear();
+	}
+
+	@Test
+	public void onlyGetRequestsForCachingRoutes() {
+		RequestContext.getCurrentContext().remove(
+				ResponseCacheRouteFilter.CACHE_RESPONSES);
+		assertFalse(this.routeFilter.shouldFilter());
+		newRequest();
+		((MockHttpServletRequest) RequestContext.getCurrentContext().getRequest())
+				.setMethod("POST");
+		assertFalse(this.routeFilter.shouldFilter());
+		newRequest();
+		assertTrue(this.routeFilter.shouldFilter());
+	}
+
+	@Test
+	public void freshResponseServedWithoutRouting() throws Exception {
+		fetch(200, "max-age=60", "hello");
+
+		RequestContext ctx = newRequest();
+		this.routeFilter.run();
+		assertNull(ctx.get("serviceId"));
+		assertEquals(200, ctx.getResponseStatusCode());
+		assertEquals("hello", body(ctx));
+		assertFalse(ctx.containsKey(ResponseCacheRouteFilter.CACHE_KEY));
+		assertFalse(this.postFilter.shouldFilter());
+	}
+
+	@Test
+	public void matchingEtagGetsNotModified() throws Exception {
+		fetch(200, "max-age=60", "hello");
+
+		RequestContext ctx = newRequest();
+		((MockHttpServletRequest) ctx.getRequest()).addHeader("If-None-Match",
+				"W/\"v1\"");
+		this.routeFilter.run();
+		assertEquals(304, ctx.getResponseStatusCode());
+		assertNull(ctx.getResponseDataStream());
+	}
+
+	@Test
+	public void staleResponseRevalidated() throws Exception {
+		fetch(200, "no-cache", "hello");
+
+		RequestContext ctx = newRequest();
+		this.routeFilter.run();
+		assertEquals("routed", ctx.get("serviceId"));
+		assertEquals("\"v1\"", ctx.getZuulRequestHeaders().get("if-none-match"));
+		ctx.setResponseStatusCode(304);
+		ctx.addOriginResponseHeader("Cache-Control", "max-age=60");
+		ctx.addZuulResponseHeader("Cache-Control", "max-age=60");
+		this.postFilter.run();
+		assertEquals(200, ctx.getResponseStatusCode());
+		assertEquals("hello", body(ctx));
+
+		// and now it is fresh
+		ctx = newRequest();
+		this.routeFilter.run();
+		assertNull(ctx.get("serviceId"));
+		assertEquals("hello", body(ctx));
+	}
+
+	@Test
+	public void largeResponseStreamedWithoutCaching() throws Exception {
+		this.properties.setMaxBodySize(3);
+		RequestContext ctx = fetch(200, "max-age=60", "hello");
+		assertEquals("hello", body(ctx));
+		assertEquals(0, this.store.size());
+	}
+
+	@Test
+	public void uncacheableResponseNeitherBufferedNorCoalesced() throws Exception {
+		RequestContext ctx = newRequest();
+		this.routeFilter.run();
+		ctx.setResponseStatusCode(200);
+		ctx.addOriginResponseHeader("Cache-Control", "private, max-age=60");
+		ByteArrayInputStream stream = new ByteArrayInputStream("hello".getBytes());
+		ctx.setResponseDataStream(stream);
+		this.postFilter.run();
+		assertSame(stream, ctx.getResponseDataStream());
+		assertEquals(5, stream.available());
+
+		// the next request does not wait for anyone or lead anyone
+		ctx = newRequest();
+		this.routeFilter.run();
+		assertTrue(ctx.containsKey(ResponseCacheRouteFilter.CACHE_KEY));
+		assertFalse(ctx.containsKey(ResponseCacheRouteFilter.CACHE_LEADER));
+	}
+
+	@Test
+	public void requestsNotCoalescedIfDisabled() throws Exception {
+		this.properties.setCoalesceTimeoutMillis(0);
+		RequestContext ctx = newRequest();
+		this.routeFilter.run();
+		assertTrue(ctx.containsKey(ResponseCacheRouteFilter.CACHE_KEY));
+		assertFalse(ctx.containsKey(ResponseCacheRouteFilter.CACHE_LEADER));
+	}
+
+	@Test
+	public void authorizedRequestsNotCached() throws Exception {
+		RequestContext ctx = newRequest();
+		((MockHttpServletRequest) ctx.getRequest()).addHeader("Authorization",
+				"Basic Zm9vOmJhcg==");
+		this.routeFilter.run();
+		assertFalse(ctx.containsKey(ResponseCacheRouteFilter.CACHE_KEY));
+	}
+
+	private RequestContext fetch(int status, String cacheControl, String body)
+			throws Exception {
+		RequestContext ctx = newRequest();
+		this.routeFilter.run();
+		assertTrue(ctx.containsKey(ResponseCacheRouteFilter.CACHE_LEADER));
+		ctx.setResponseStatusCode(status);
+		ctx.addOriginResponseHeader("Cache-Control", cacheControl);
+		ctx.addZuulResponseHeader("Cache-Control", cacheControl);
+		ctx.addOriginResponseHeader("ETag", "\"v1\"");
+		ctx.addZuulResponseHeader("ETag", "\"v1\"");
+		ctx.setResponseDataStream(new ByteArrayInputStream(body.getBytes()));
+		assertTrue(this.postFilter.shouldFilter());
+		this.postFilter.run();
+		assertFalse(ctx.containsKey(ResponseCacheRouteFilter.CACHE_LEADER));
+		return ctx;
+	}
+
+	private RequestContext newRequest() {
+		RequestContext ctx = new RequestContext();
+		ctx.setRequest(new MockHttpServletRequest("GET", "/foo/bar"));
+		ctx.setResponse(new MockHttpServletResponse());
+		ctx.set("proxy", "foo");
+		ctx.set("serviceId", "routed");
+		ctx.set(ResponseCacheRouteFilter.CACHE_RESPONSES, true);
+		RequestContext.testSetCurrentContext(ctx);
+		return ctx;
+	}
+
+	private String body(RequestContext ctx) throws Exception {
+		return new String(StreamUtils.copyToByteArray(ctx.getResponseDataStream()));
+	}
+
+}
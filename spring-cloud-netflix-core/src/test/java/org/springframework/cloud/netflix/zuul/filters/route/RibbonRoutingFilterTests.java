@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.route.restclient.RestClientRibbonCommandFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.netflix.client.ClientException;
+import com.netflix.client.http.HttpRequest;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.exception.HystrixRuntimeException.FailureType;
+import com.netflix.niws.client.http.RestClient;
+import com.netflix.zuul.context.RequestContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routes with a bulkhead are forwarded without Hystrix, their failures have to be
+ * reported exactly like the ones of a Hystrix command.
+ */
+public class RibbonRoutingFilterTests {
+
+	private ZuulProperties.Bulkhead bulkhead = new ZuulProperties.Bulkhead();
+
+	private DirectRibbonCommandFactory<RibbonCommand> factory;
+
+	private RibbonCommand command = mock(RibbonCommand.class);
+
+	private RibbonRoutingFilter filter;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void init() {
+		this.factory = mock(DirectRibbonCommandFactory.class);
+		when(this.factory.create(any(RibbonCommandContext.class)))
+				.thenReturn(this.command);
+		this.filter = new RibbonRoutingFilter(this.factory);
+	}
+
+	@After
+	public void reset() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@Test
+	public void rejectedSemaphoreReportedLikeHystrix() throws Exception {
+		this.bulkhead.setMaxConcurrentRequests(0);
+		RequestContext bypassed = run(this.filter, this.bulkhead);
+
+		RequestContext hystrix = runWithHystrixFailure(
+				FailureType.REJECTED_SEMAPHORE_EXECUTION, null);
+
+		assertEquals("REJECTED_SEMAPHORE_EXECUTION", bypassed.get("error.message"));
+		assertSameError(hystrix, bypassed);
+	}
+
+	@Test
+	public void shortCircuitReportedLikeHystrix() throws Exception {
+		this.bulkhead.setRequestVolumeThreshold(1);
+		when(this.factory.forward(any(RibbonCommandContext.class)))
+				.thenThrow(new IllegalStateException("down"));
+		// the first failure opens the circuit
+		run(this.filter, this.bulkhead);
+		RequestContext bypassed = run(this.filter, this.bulkhead);
+
+		RequestContext hystrix = runWithHystrixFailure(FailureType.SHORTCIRCUIT, null);
+
+		assertEquals("SHORTCIRCUIT", bypassed.get("error.message"));
+		assertSameError(hystrix, bypassed);
+	}
+
+	@Test
+	public void throttledServerReportedAsServiceUnavailable() throws Exception {
+		ClientException throttled = new ClientException(
+				ClientException.ErrorType.SERVER_THROTTLED);
+		when(this.factory.forward(any(RibbonCommandContext.class))).thenThrow(throttled);
+		RequestContext bypassed = run(this.filter, this.bulkhead);
+
+		RequestContext hystrix = runWithHystrixFailure(FailureType.COMMAND_EXCEPTION,
+				throttled);
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(),
+				bypassed.get("error.status_code"));
+		assertSameError(hystrix, bypassed);
+	}
+
+	@Test
+	public void restClientRouteFallsBackToHystrix() throws Exception {
+		RestClient client = mock(RestClient.class);
+		when(client.executeWithLoadBalancer(any(HttpRequest.class))).thenThrow(
+				new ClientException(ClientException.ErrorType.SERVER_THROTTLED));
+		SpringClientFactory clientFactory = mock(SpringClientFactory.class);
+		when(clientFactory.getClient(anyString(), eq(RestClient.class)))
+				.thenReturn(client);
+		RibbonRoutingFilter filter = new RibbonRoutingFilter(
+				new RestClientRibbonCommandFactory(clientFactory));
+
+		RequestContext context = run(filter, this.bulkhead);
+
+		verify(client).executeWithLoadBalancer(any(HttpRequest.class));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(),
+				context.get("error.status_code"));
+		assertEquals("SERVER_THROTTLED", context.get("error.message"));
+	}
+
+	private RequestContext runWithHystrixFailure(FailureType failureType,
+			Exception cause) {
+		when(this.command.execute()).thenThrow(new HystrixRuntimeException(failureType,
+				RibbonCommand.class, "failed", cause, null));
+		return run(this.filter, null);
+	}
+
+	private RequestContext run(RibbonRoutingFilter filter,
+			ZuulProperties.Bulkhead bulkhead) {
+		RequestContext context = new RequestContext();
+		context.setRequest(new MockHttpServletRequest("GET", "/foo"));
+		context.setResponse(new MockHttpServletResponse());
+		context.set("serviceId", "foo");
+		context.set("proxy", "foo");
+		if (bulkhead != null) {
+			context.set(RibbonRoutingFilter.BULKHEAD, bulkhead);
+		}
+		RequestContext.testSetCurrentContext(context);
+		filter.run();
+		return context;
+	}
+
+	private void assertSameError(RequestContext expected, RequestContext actual) {
+		assertEquals(expected.get("error.status_code"), actual.get("error.status_code"));
+		assertEquals(expected.get("error.message"), actual.get("error.message"));
+	}
+
+}
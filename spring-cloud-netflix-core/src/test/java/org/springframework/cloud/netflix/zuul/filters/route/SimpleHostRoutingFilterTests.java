@@ -16,18 +16,34 @@
 
 package org.springframework.cloud.netflix.zuul.filters.route;
 
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.junit.After;
 import org.junit.Test;
 import org.springframework.boot.autoconfigure.PropertyPlaceholderAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.netflix.httpclient.ConnectionEvictor;
 import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
 import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.netflix.zuul.context.RequestContext;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.boot.test.EnvironmentTestUtils.addEnvironment;
 
 /**
@@ -43,6 +59,7 @@ public class SimpleHostRoutingFilterTests {
 		if (this.context != null) {
 			this.context.close();
 		}
+		RequestContext.getCurrentContext().unset();
 	}
 
 	@Test
@@ -63,6 +80,138 @@ public class SimpleHostRoutingFilterTests {
 		assertEquals(20, connMgr.getDefaultMaxPerRoute());
 	}
 
+	@Test
+	public void routeConnectionPropertiesAreApplied() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1",
+				"zuul.routes.foo.host.maxTotalConnections=5",
+				"zuul.routes.foo.host.maxPerRouteConnections=5",
+				"zuul.routes.foo.host.timeToLive=30",
+				"zuul.routes.foo.host.timeUnit=SECONDS");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		PoolingHttpClientConnectionManager connMgr = getFilter()
+				.getRouteConnectionManagers().get("foo");
+		assertNotNull(connMgr);
+		assertEquals(5, connMgr.getMaxTotal());
+		assertEquals(5, connMgr.getDefaultMaxPerRoute());
+		assertNotSame(getFilter().getConnectionManager(), connMgr);
+	}
+
+	@Test
+	public void routeConnectionPoolResizedInPlace() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1",
+				"zuul.routes.foo.host.maxTotalConnections=5");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		PoolingHttpClientConnectionManager connMgr = getFilter()
+				.getRouteConnectionManagers().get("foo");
+		ZuulProperties.Host host = new ZuulProperties.Host();
+		host.setMaxTotalConnections(50);
+		this.context.getBean(ZuulProperties.class).getRoutes().get("foo").setHost(host);
+		runFilter("foo", "http://localhost:1");
+		assertSame(connMgr, getFilter().getRouteConnectionManagers().get("foo"));
+		assertEquals(50, connMgr.getMaxTotal());
+	}
+
+	@Test
+	public void routeConnectionPoolReconfiguredWhenHostMutated() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1",
+				"zuul.routes.foo.host.maxTotalConnections=5");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		PoolingHttpClientConnectionManager connMgr = getFilter()
+				.getRouteConnectionManagers().get("foo");
+		this.context.getBean(ZuulProperties.class).getRoutes().get("foo").getHost()
+				.setMaxTotalConnections(50);
+		runFilter("foo", "http://localhost:1");
+		assertSame(connMgr, getFilter().getRouteConnectionManagers().get("foo"));
+		assertEquals(50, connMgr.getMaxTotal());
+	}
+
+	@Test
+	public void removedRouteConnectionPoolClosedOnceIdle() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1",
+				"zuul.routes.foo.host.maxTotalConnections=5");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		PoolingHttpClientConnectionManager connMgr = getFilter()
+				.getRouteConnectionManagers().get("foo");
+		// a response still being sent
+		HttpRoute route = new HttpRoute(new HttpHost("localhost", 1));
+		HttpClientConnection connection = connMgr.requestConnection(route, null)
+				.get(1, TimeUnit.SECONDS);
+		this.context.getBean(ZuulProperties.class).getRoutes().get("foo").setHost(null);
+		runFilter("foo", "http://localhost:1");
+		evict();
+		assertTrue(getFilter().getRouteConnectionManagers().isEmpty());
+		assertFalse(isShutDown(connMgr));
+		connMgr.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+		evict();
+		assertTrue(isShutDown(connMgr));
+	}
+
+	@Test
+	public void removedRouteConnectionPoolClosedWithoutRequests() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1",
+				"zuul.routes.foo.host.maxTotalConnections=5");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		PoolingHttpClientConnectionManager connMgr = getFilter()
+				.getRouteConnectionManagers().get("foo");
+		this.context.getBean(ZuulProperties.class).getRoutes().remove("foo");
+		evict();
+		assertTrue(getFilter().getRouteConnectionManagers().isEmpty());
+		assertTrue(isShutDown(connMgr));
+	}
+
+	@Test
+	public void hostConstructorKeepsDefaults() {
+		ZuulProperties.Host host = new ZuulProperties.Host(100, 10);
+		assertEquals(100, host.getMaxTotalConnections());
+		assertEquals(10, host.getMaxPerRouteConnections());
+		assertEquals(-1, host.getTimeToLive());
+		assertEquals(TimeUnit.MILLISECONDS, host.getTimeUnit());
+	}
+
+	@Test
+	public void routesWithoutHostPropertiesShareThePool() throws Exception {
+		addEnvironment(this.context, "zuul.routes.foo.path=/foo/**",
+				"zuul.routes.foo.url=http://localhost:1");
+		setupContext();
+		runFilter("foo", "http://localhost:1");
+		assertTrue(getFilter().getRouteConnectionManagers().isEmpty());
+	}
+
+	private void runFilter(String routeId, String url) throws Exception {
+		RequestContext context = new RequestContext();
+		context.setRequest(new MockHttpServletRequest("GET", "/"));
+		context.setResponse(new MockHttpServletResponse());
+		context.setRouteHost(new URL(url));
+		context.set("proxy", routeId);
+		RequestContext.testSetCurrentContext(context);
+		getFilter().run();
+	}
+
+	private void evict() {
+		this.context.getBean(ConnectionEvictor.class).evict();
+	}
+
+	private boolean isShutDown(PoolingHttpClientConnectionManager connMgr) {
+		try {
+			connMgr.requestConnection(new HttpRoute(new HttpHost("localhost", 1)), null)
+					.cancel();
+			return false;
+		}
+		catch (IllegalStateException ex) {
+			return true;
+		}
+	}
+
 	private void setupContext() {
 		this.context.register(PropertyPlaceholderAutoConfiguration.class,
 				TestConfiguration.class);
@@ -80,5 +229,11 @@ public class SimpleHostRoutingFilterTests {
 		SimpleHostRoutingFilter simpleHostRoutingFilter(ZuulProperties zuulProperties) {
 			return new SimpleHostRoutingFilter(new ProxyRequestHelper(), zuulProperties);
 		}
+
+		@Bean(destroyMethod = "destroy")
+		ConnectionEvictor connectionEvictor() {
+			// only evicts when the tests ask for it
+			return new ConnectionEvictor(3600000, -1);
+		}
 	}
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.apache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.ribbon.SpringClientFactory;
+import org.springframework.cloud.netflix.ribbon.apache.RibbonLoadBalancingHttpClient;
+import org.springframework.cloud.netflix.zuul.filters.route.RibbonCommandContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.netflix.loadbalancer.ILoadBalancer;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class HttpClientRibbonCommandFactoryTests {
+
+	private SpringClientFactory clientFactory = mock(SpringClientFactory.class);
+
+	private ILoadBalancer loadBalancer = mock(ILoadBalancer.class);
+
+	private HttpClientRibbonCommandFactory factory;
+
+	@Before
+	public void init() {
+		given(this.clientFactory.getClient("foo", RibbonLoadBalancingHttpClient.class))
+				.willReturn(new RibbonLoadBalancingHttpClient());
+		given(this.clientFactory.getLoadBalancer("foo")).willReturn(this.loadBalancer);
+		this.factory = new HttpClientRibbonCommandFactory(this.clientFactory);
+	}
+
+	@Test
+	public void clientLookedUpOncePerService() {
+		this.factory.create(context("foo"));
+		this.factory.create(context("foo"));
+		assertSame(this.loadBalancer,
+				this.factory.getClientBundle("foo").getClient().getLoadBalancer());
+		verify(this.clientFactory, times(1)).getClient("foo",
+				RibbonLoadBalancingHttpClient.class);
+		verify(this.clientFactory, times(1)).getLoadBalancer("foo");
+	}
+
+	@Test
+	public void clientEvictedWhenChildContextRefreshed() {
+		HttpClientRibbonCommandFactory.ClientBundle bundle = this.factory
+				.getClientBundle("foo");
+		this.factory.onApplicationEvent(refreshed("bar"));
+		assertSame(bundle, this.factory.getClientBundle("foo"));
+		this.factory.onApplicationEvent(refreshed("foo"));
+		assertNotSame(bundle, this.factory.getClientBundle("foo"));
+		verify(this.clientFactory, times(2)).getClient("foo",
+				RibbonLoadBalancingHttpClient.class);
+	}
+
+	@Test
+	public void clientNotEvictedWhenOtherContextRefreshedOrClosed() {
+		HttpClientRibbonCommandFactory.ClientBundle bundle = this.factory
+				.getClientBundle("foo");
+		this.factory.onApplicationEvent(refreshed(null));
+		this.factory.onApplicationEvent(closed(null));
+		this.factory.onApplicationEvent(closed("bar"));
+		assertSame(bundle, this.factory.getClientBundle("foo"));
+		this.factory.onApplicationEvent(closed("foo"));
+		assertNotSame(bundle, this.factory.getClientBundle("foo"));
+	}
+
+	private ContextRefreshedEvent refreshed(String serviceId) {
+		return new ContextRefreshedEvent(applicationContext(serviceId));
+	}
+
+	private ContextClosedEvent closed(String serviceId) {
+		return new ContextClosedEvent(applicationContext(serviceId));
+	}
+
+	private ApplicationContext applicationContext(String serviceId) {
+		ApplicationContext context = mock(ApplicationContext.class);
+		MockEnvironment environment = new MockEnvironment();
+		if (serviceId != null) {
+			environment.setProperty("ribbon.client.name", serviceId);
+		}
+		given(context.getEnvironment()).willReturn(environment);
+		return context;
+	}
+
+	private RibbonCommandContext context(String serviceId) {
+		return new RibbonCommandContext(serviceId, "GET", "/", false, null, null, null);
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.netflix.config.ConfigurationManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class AbstractRibbonCommandTests {
+
+	private static final String HYSTRIX_MAX_SEMAPHORES = "hystrix.command.dynamicRibbonCommand"
+			+ ".execution.isolation.semaphore.maxConcurrentRequests";
+
+	private static final String HYSTRIX_EXPLICIT_MAX_SEMAPHORES = "hystrix.command.explicitRibbonCommand"
+			+ ".execution.isolation.semaphore.maxConcurrentRequests";
+
+	@After
+	public void reset() {
+		ConfigurationManager.getConfigInstance()
+				.clearProperty("zuul.eureka.dynamic.semaphore.maxSemaphores");
+		ConfigurationManager.getConfigInstance().clearProperty(HYSTRIX_MAX_SEMAPHORES);
+		ConfigurationManager.getConfigInstance()
+				.clearProperty("zuul.eureka.explicit.semaphore.maxSemaphores");
+		ConfigurationManager.getConfigInstance()
+				.clearProperty(HYSTRIX_EXPLICIT_MAX_SEMAPHORES);
+	}
+
+	@Test
+	public void setterCachedPerCommandKey() {
+		assertSame(AbstractRibbonCommand.getSetter("cached"),
+				AbstractRibbonCommand.getSetter("cached"));
+	}
+
+	@Test
+	public void maxSemaphoresChangePropagatedToHystrix() {
+		AbstractRibbonCommand.getSetter("dynamic");
+		ConfigurationManager.getConfigInstance()
+				.setProperty("zuul.eureka.dynamic.semaphore.maxSemaphores", 5);
+		AbstractRibbonCommand.getSetter("dynamic");
+		assertEquals(5, ConfigurationManager.getConfigInstance()
+				.getInt(HYSTRIX_MAX_SEMAPHORES));
+		ConfigurationManager.getConfigInstance()
+				.setProperty("zuul.eureka.dynamic.semaphore.maxSemaphores", 7);
+		AbstractRibbonCommand.getSetter("dynamic");
+		assertEquals(7, ConfigurationManager.getConfigInstance()
+				.getInt(HYSTRIX_MAX_SEMAPHORES));
+	}
+
+	@Test
+	public void unchangedMaxSemaphoresNotWrittenToHystrix() {
+		AbstractRibbonCommand.getSetter("unchanged");
+		AbstractRibbonCommand.getSetter("unchanged");
+		assertFalse(ConfigurationManager.getConfigInstance().containsKey(
+				"hystrix.command.unchangedRibbonCommand.execution.isolation.semaphore.maxConcurrentRequests"));
+	}
+
+	@Test
+	public void explicitHystrixMaxSemaphoresNotOverwritten() {
+		ConfigurationManager.getConfigInstance()
+				.setProperty(HYSTRIX_EXPLICIT_MAX_SEMAPHORES, 3);
+		AbstractRibbonCommand.getSetter("explicit");
+		ConfigurationManager.getConfigInstance()
+				.setProperty("zuul.eureka.explicit.semaphore.maxSemaphores", 5);
+		AbstractRibbonCommand.getSetter("explicit");
+		assertEquals(3, ConfigurationManager.getConfigInstance()
+				.getInt(HYSTRIX_EXPLICIT_MAX_SEMAPHORES));
+	}
+
+}
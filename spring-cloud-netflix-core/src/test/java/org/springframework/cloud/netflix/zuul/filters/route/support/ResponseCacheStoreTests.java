@@ -0,0 +1,198 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.netflix.zuul.context.RequestContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheStoreTests {
+
+	private ZuulProperties.ResponseCache properties = new ZuulProperties.ResponseCache();
+
+	private ResponseCacheStore store = new ResponseCacheStore(this.properties);
+
+	private MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+
+	private RequestContext context;
+
+	@Before
+	public void init() {
+		this.context = new RequestContext();
+		this.context.setRequest(this.request);
+		this.context.setResponse(new MockHttpServletResponse());
+		this.context.setResponseStatusCode(200);
+		RequestContext.testSetCurrentContext(this.context);
+	}
+
+	@After
+	public void reset() {
+		RequestContext.getCurrentContext().clear();
+	}
+
+	@Test
+	public void maxAgeStoredAndFresh() {
+		response("Cache-Control", "public, max-age=60");
+		CachedResponse entry = this.store.createEntry(this.context, body(), 1000);
+		assertNotNull(entry);
+		assertEquals(60000, entry.getFreshnessMillis());
+		assertTrue(entry.isFresh(60999));
+		assertFalse(entry.isFresh(61000));
+	}
+
+	@Test
+	public void sharedMaxAgePreferredAndAgeDeducted() {
+		response("Cache-Control", "max-age=60, s-maxage=10");
+		response("Age", "4");
+		CachedResponse entry = this.store.createEntry(this.context, body(), 0);
+		assertEquals(6000, entry.getFreshnessMillis());
+	}
+
+	@Test
+	public void expiresRelativeToDate() {
+		response("Date", "Mon, 01 Aug 2016 10:00:00 GMT");
+		response("Expires", "Mon, 01 Aug 2016 10:00:30 GMT");
+		CachedResponse entry = this.store.createEntry(this.context, body(), 0);
+		assertEquals(30000, entry.getFreshnessMillis());
+	}
+
+	@Test
+	public void uncacheableResponsesNotStored() {
+		assertNotStored("Cache-Control", "max-age=60, private");
+		assertNotStored("Cache-Control", "no-store");
+		assertNotStored("Vary", "*");
+		assertNotStored("Set-Cookie", "foo=bar");
+		// no freshness and no validator
+		assertNotStored("Content-Type", "text/plain");
+	}
+
+	@Test
+	public void validatorWithoutFreshnessStoredStale() {
+		response("Cache-Control", "no-cache");
+		response("ETag", "\"v1\"");
+		CachedResponse entry = this.store.createEntry(this.context, body(), 0);
+		assertNotNull(entry);
+		assertFalse(entry.isFresh(0));
+		assertTrue(entry.hasValidator());
+		assertEquals("\"v1\"", entry.getEtag());
+	}
+
+	@Test
+	public void errorsNotStored() {
+		this.context.setResponseStatusCode(500);
+		response("Cache-Control", "max-age=60");
+		assertNull(this.store.createEntry(this.context, body(), 0));
+	}
+
+	@Test
+	public void variantsSelectedByVaryHeaders() {
+		response("Cache-Control", "max-age=60");
+		response("Vary", "Accept-Language, Accept-Encoding");
+		this.request.addHeader("Accept-Language", "en");
+		CachedResponse english = this.store.createEntry(this.context, body(), 0);
+		this.store.put("foo", english);
+		this.request.removeHeader("Accept-Language");
+		this.request.addHeader("Accept-Language", "fr");
+		assertNull(this.store.get("foo", this.context));
+		CachedResponse french = this.store.createEntry(this.context, body(), 0);
+		this.store.put("foo", french);
+		assertSame(french, this.store.get("foo", this.context));
+		this.request.removeHeader("Accept-Language");
+		this.request.addHeader("Accept-Language", "en");
+		assertSame(english, this.store.get("foo", this.context));
+		assertEquals(1, this.store.size());
+	}
+
+	@Test
+	public void revalidationRefreshesEntry() {
+		response("Cache-Control", "max-age=10");
+		response("ETag", "\"v1\"");
+		CachedResponse stale = this.store.createEntry(this.context, body(), 0);
+		this.context.getOriginResponseHeaders().clear();
+		this.context.getZuulResponseHeaders().clear();
+		this.context.setResponseStatusCode(304);
+		response("Cache-Control", "max-age=20");
+		CachedResponse refreshed = this.store.revalidate(stale, this.context, 50000);
+		assertEquals(20000, refreshed.getFreshnessMillis());
+		assertTrue(refreshed.isFresh(50000));
+		assertEquals("\"v1\"", refreshed.getEtag());
+		assertSame(stale.getBody(), refreshed.getBody());
+		assertEquals(2, refreshed.getHeaders().size());
+		assertEquals("max-age=20", refreshed.getHeaders().get(1).second());
+	}
+
+	@Test
+	public void largestResponsesEvicted() {
+		this.properties.setMaxSize(10000);
+		this.store = new ResponseCacheStore(this.properties);
+		response("Cache-Control", "max-age=60");
+		for (int i = 0; i < 10; i++) {
+			this.store.put("foo" + i,
+					this.store.createEntry(this.context, new byte[2000], 0));
+		}
+		assertTrue(this.store.size() < 10);
+	}
+
+	@Test
+	public void onlyOneLeaderPerKey() {
+		CountDownLatch leader = this.store.lead("foo");
+		assertNotNull(leader);
+		assertNull(this.store.lead("foo"));
+		assertNotNull(this.store.lead("bar"));
+		this.store.complete("foo", leader);
+		assertEquals(0, leader.getCount());
+		assertNotNull(this.store.lead("foo"));
+	}
+
+	@Test
+	public void lostLeaderForgottenAfterTimeout() {
+		this.properties.setCoalesceTimeoutMillis(10);
+		assertNotNull(this.store.lead("foo"));
+		this.store.await("foo");
+		assertNotNull(this.store.lead("foo"));
+	}
+
+	private void assertNotStored(String name, String value) {
+		this.context.getOriginResponseHeaders().clear();
+		response(name, value);
+		assertNull(this.store.createEntry(this.context, body(), 0));
+	}
+
+	private void response(String name, String value) {
+		this.context.addOriginResponseHeader(name, value);
+		this.context.addZuulResponseHeader(name, value);
+	}
+
+	private byte[] body() {
+		return "hello".getBytes();
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.filters.route.support;
+
+import org.junit.Test;
+import org.springframework.cloud.netflix.zuul.filters.ZuulProperties;
+import org.springframework.cloud.netflix.zuul.filters.route.support.RouteBulkhead.Admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouteBulkheadTests {
+
+	private ZuulProperties.Bulkhead properties = new ZuulProperties.Bulkhead();
+
+	@Test
+	public void concurrentRequestsLimited() {
+		this.properties.setMaxConcurrentRequests(2);
+		RouteBulkhead bulkhead = new RouteBulkhead(this.properties);
+		assertTrue(bulkhead.tryAcquire());
+		assertTrue(bulkhead.tryAcquire());
+		assertFalse(bulkhead.tryAcquire());
+		bulkhead.complete(Admission.ALLOWED, true);
+		assertTrue(bulkhead.tryAcquire());
+		assertEquals(2, bulkhead.getConcurrentRequests());
+	}
+
+	@Test
+	public void circuitOpensAtErrorThreshold() {
+		this.properties.setRequestVolumeThreshold(4);
+		this.properties.setErrorThresholdPercentage(50);
+		RouteBulkhead bulkhead = new RouteBulkhead(this.properties);
+		run(bulkhead, true);
+		run(bulkhead, false);
+		run(bulkhead, true);
+		assertFalse(bulkhead.isCircuitOpen());
+		run(bulkhead, false);
+		assertTrue(bulkhead.isCircuitOpen());
+		assertEquals(Admission.REJECTED, bulkhead.allowRequest());
+		assertEquals(0, bulkhead.getConcurrentRequests());
+	}
+
+	@Test
+	public void trialRequestClosesCircuit() {
+		this.properties.setRequestVolumeThreshold(1);
+		this.properties.setSleepWindowMillis(0);
+		RouteBulkhead bulkhead = new RouteBulkhead(this.properties);
+		run(bulkhead, false);
+		assertTrue(bulkhead.isCircuitOpen());
+		assertTrue(bulkhead.tryAcquire());
+		assertEquals(Admission.TRIAL, bulkhead.allowRequest());
+		// only one trial at a time
+		assertEquals(Admission.REJECTED, bulkhead.allowRequest());
+		bulkhead.complete(Admission.TRIAL, true);
+		assertFalse(bulkhead.isCircuitOpen());
+		assertEquals(Admission.ALLOWED, bulkhead.allowRequest());
+	}
+
+	@Test
+	public void failedTrialReopensCircuit() {
+		this.properties.setRequestVolumeThreshold(1);
+		this.properties.setSleepWindowMillis(0);
+		RouteBulkhead bulkhead = new RouteBulkhead(this.properties);
+		run(bulkhead, false);
+		assertTrue(bulkhead.tryAcquire());
+		assertEquals(Admission.TRIAL, bulkhead.allowRequest());
+		bulkhead.complete(Admission.TRIAL, false);
+		assertTrue(bulkhead.isCircuitOpen());
+		assertEquals(Admission.TRIAL, bulkhead.allowRequest());
+	}
+
+	@Test
+	public void onlyTrialRequestClosesCircuit() {
+		this.properties.setRequestVolumeThreshold(2);
+		this.properties.setSleepWindowMillis(0);
+		RouteBulkhead bulkhead = new RouteBulkhead(this.properties);
+		// a slow request admitted while the circuit was still closed
+		assertTrue(bulkhead.tryAcquire());
+		Admission slow = bulkhead.allowRequest();
+		assertEquals(Admission.ALLOWED, slow);
+		run(bulkhead, false);
+		run(bulkhead, false);
+		assertTrue(bulkhead.isCircuitOpen());
+		assertTrue(bulkhead.tryAcquire());
+		Admission trial = bulkhead.allowRequest();
+		assertEquals(Admission.TRIAL, trial);
+		bulkhead.complete(slow, true);
+		assertTrue(bulkhead.isCircuitOpen());
+		assertEquals(Admission.REJECTED, bulkhead.allowRequest());
+		bulkhead.complete(trial, true);
+		assertFalse(bulkhead.isCircuitOpen());
+	}
+
+	private void run(RouteBulkhead bulkhead, boolean success) {
+		assertTrue(bulkhead.tryAcquire());
+		Admission admission = bulkhead.allowRequest();
+		assertTrue(admission.isAllowed());
+		bulkhead.complete(admission, success);
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.util.PatternMatchUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SimplePatternMatcherTests {
+
+	@Test
+	public void exactPrefixAndSuffix() {
+		SimplePatternMatcher matcher = new SimplePatternMatcher(
+				Arrays.asList("/exact", "/admin/*", "*.jsp"));
+		assertTrue(matcher.matches("/exact"));
+		assertFalse(matcher.matches("/exact/1"));
+		assertTrue(matcher.matches("/admin/env"));
+		assertTrue(matcher.matches("/foo/index.jsp"));
+		assertFalse(matcher.matches("/foo/index.html"));
+	}
+
+	@Test
+	public void matchAll() {
+		SimplePatternMatcher matcher = new SimplePatternMatcher(
+				Collections.singletonList("**"));
+		assertTrue(matcher.matches("/anything"));
+	}
+
+	@Test
+	public void empty() {
+		SimplePatternMatcher matcher = new SimplePatternMatcher(null);
+		assertFalse(matcher.matches("/foo"));
+		assertFalse(matcher.matches(null));
+	}
+
+	@Test
+	public void sameAsPatternMatchUtils() {
+		List<String> patterns = Arrays.asList("/**/admin/**", "/a*b*c", "*x*", "/foo/**",
+				"**/bar", "a**b");
+		List<String> paths = Arrays.asList("/admin", "/foo/admin/env", "/abc", "/aXbYc",
+				"/abcd", "/x", "/foo", "/foo/", "/baz/bar", "ab", "acb", "", "/");
+		for (String pattern : patterns) {
+			SimplePatternMatcher matcher = new SimplePatternMatcher(
+					Collections.singletonList(pattern));
+			for (String path : paths) {
+				assertEquals(pattern + " " + path,
+						PatternMatchUtils.simpleMatch(pattern, path),
+						matcher.matches(path));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.netflix.zuul.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.netflix.zuul.ZuulFilterInitializer;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncZuulServletTests {
+
+	private List<Runnable> tasks = new ArrayList<>();
+
+	private AsyncZuulServlet servlet;
+
+	private MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+
+	private MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private boolean closed;
+
+	@Before
+	public void init() throws Exception {
+		this.servlet = new AsyncZuulServlet(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				AsyncZuulServletTests.this.tasks.add(command);
+			}
+		}, 1000);
+		this.servlet.init(new MockServletConfig());
+		this.request.setAsyncSupported(true);
+		// the servlet works with the thread local context, not a test context
+		RequestContext.testSetCurrentContext(null);
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@After
+	public void reset() {
+		RequestContext.getCurrentContext().unset();
+	}
+
+	@Test
+	public void proxiedRequestRoutedAsynchronously() throws Exception {
+		final RequestContext context = RequestContext.getCurrentContext();
+		context.setRouteHost(new URL("http://localhost:8080"));
+		this.servlet.service(this.request, this.response);
+		assertTrue(this.request.isAsyncStarted());
+		assertEquals(1, this.tasks.size());
+		// the container thread no longer holds the context
+		assertNotSame(context, RequestContext.getCurrentContext());
+		final List<RequestContext> routed = new ArrayList<>();
+		Thread worker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				AsyncZuulServletTests.this.tasks.get(0).run();
+				routed.add(RequestContext.getCurrentContext());
+			}
+		});
+		worker.start();
+		worker.join();
+		assertFalse(this.request.isAsyncStarted());
+		assertNotSame(context, routed.get(0));
+		assertSame(this.request, context.getRequest());
+	}
+
+	@Test
+	public void concurrentRequestsSeeTheirOwnContext() throws Exception {
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final Map<HttpServletRequest, RequestContext> seen = new ConcurrentHashMap<>();
+		ZuulFilter filter = new ZuulFilter() {
+			@Override
+			public String filterType() {
+				return "route";
+			}
+
+			@Override
+			public int filterOrder() {
+				return 0;
+			}
+
+			@Override
+			public boolean shouldFilter() {
+				return true;
+			}
+
+			@Override
+			public Object run() {
+				RequestContext context = RequestContext.getCurrentContext();
+				try {
+					// both requests are routing at the same time
+					barrier.await(5, TimeUnit.SECONDS);
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+				seen.put(context.getRequest(), context);
+				return null;
+			}
+		};
+		ZuulFilterInitializer filters = new ZuulFilterInitializer(
+				Collections.singletonMap("contextRecorder", filter));
+		filters.contextDestroyed(null);
+		filters.contextInitialized(null);
+		try {
+			MockHttpServletRequest other = new MockHttpServletRequest("GET", "/bar");
+			other.setAsyncSupported(true);
+			RequestContext first = startProxied(this.request);
+			RequestContext second = startProxied(other);
+			Thread[] workers = new Thread[2];
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = new Thread(this.tasks.get(i));
+				workers[i].start();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			assertSame(first, seen.get(first.getRequest()));
+			assertSame(second, seen.get(second.getRequest()));
+			assertSame(this.request, first.getRequest());
+			assertSame(other, second.getRequest());
+		}
+		finally {
+			filters.contextDestroyed(null);
+		}
+	}
+
+	@Test
+	public void requestTimedOutWhileQueuedNotRouted() throws Exception {
+		startProxied(this.request);
+		timeOut();
+		assertEquals(504, this.response.getStatus());
+		this.tasks.get(0).run();
+		// the worker did not route the request, so it did not complete it either
+		assertTrue(this.request.isAsyncStarted());
+	}
+
+	@Test
+	public void requestTimedOutWhileRoutingCompletedOnceRouted() throws Exception {
+		final CountDownLatch routing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final ByteArrayInputStream body = new ByteArrayInputStream(new byte[0]) {
+			@Override
+			public void close() {
+				AsyncZuulServletTests.this.closed = true;
+			}
+		};
+		ZuulFilter filter = new ZuulFilter() {
+			@Override
+			public String filterType() {
+				return "route";
+			}
+
+			@Override
+			public int filterOrder() {
+				return 0;
+			}
+
+			@Override
+			public boolean shouldFilter() {
+				return true;
+			}
+
+			@Override
+			public Object run() {
+				RequestContext.getCurrentContext().setResponseDataStream(body);
+				routing.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return null;
+			}
+		};
+		ZuulFilterInitializer filters = new ZuulFilterInitializer(
+				Collections.singletonMap("slowRoute", filter));
+		filters.contextDestroyed(null);
+		filters.contextInitialized(null);
+		try {
+			startProxied(this.request);
+			Thread worker = new Thread(this.tasks.get(0));
+			worker.start();
+			assertTrue(routing.await(5, TimeUnit.SECONDS));
+			Thread timeout = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						timeOut();
+					}
+					catch (IOException ex) {
+						throw new IllegalStateException(ex);
+					}
+				}
+			});
+			timeout.start();
+			// the request is still being routed, so it cannot be completed yet
+			timeout.join(200);
+			assertTrue(timeout.isAlive());
+			assertEquals(200, this.response.getStatus());
+			release.countDown();
+			worker.join();
+			timeout.join();
+			assertEquals(504, this.response.getStatus());
+			assertTrue(this.closed);
+		}
+		finally {
+			filters.contextDestroyed(null);
+		}
+	}
+
+	@Test
+	public void forwardHandledOnContainerThread() throws Exception {
+		RequestContext.getCurrentContext().set("forward.to", "/bar");
+		this.servlet.service(this.request, this.response);
+		assertFalse(this.request.isAsyncStarted());
+		assertTrue(this.tasks.isEmpty());
+	}
+
+	private void timeOut() throws IOException {
+		// the mock async context does not know the response, so time out with one that does
+		MockAsyncContext timedOut = new MockAsyncContext(this.request, this.response);
+		for (AsyncListener listener : ((MockAsyncContext) this.request
+				.getAsyncContext()).getListeners()) {
+			listener.onTimeout(new AsyncEvent(timedOut));
+		}
+	}
+
+	private RequestContext startProxied(MockHttpServletRequest request)
+			throws Exception {
+		RequestContext context = RequestContext.getCurrentContext();
+		context.setRouteHost(new URL("http://localhost:8080"));
+		this.servlet.service(request, new MockHttpServletResponse());
+		assertTrue(request.isAsyncStarted());
+		return context;
+	}
+
+}
@@ -16,7 +16,12 @@
 
 package org.springframework.cloud.netflix.zuul.web;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,12 +29,19 @@ import org.mockito.Mockito;
 import org.springframework.boot.autoconfigure.web.ErrorController;
 import org.springframework.cloud.netflix.zuul.filters.Route;
 import org.springframework.cloud.netflix.zuul.filters.RouteLocator;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import com.netflix.zuul.context.RequestContext;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Dave Syer
@@ -49,6 +61,7 @@ public class ZuulHandlerMappingTests {
 		RequestContext.getCurrentContext().clear();
 		this.mapping = new ZuulHandlerMapping(this.locator, new ZuulController());
 		this.mapping.setErrorController(this.errors);
+		this.mapping.setRefreshExecutor(new SyncTaskExecutor());
 		Mockito.when(this.errors.getErrorPath()).thenReturn("/error");
 	}
 
@@ -71,6 +84,95 @@ public class ZuulHandlerMappingTests {
 		assertNotNull(this.mapping.getHandler(this.request));
 	}
 
+	@Test
+	public void mostSpecificPathWithTemplateVariables() throws Exception {
+		Mockito.when(this.locator.getRoutes()).thenReturn(Arrays.asList(
+				new Route("default", "/**", "foo", "", null, null),
+				new Route("foo", "/foo/{id}/**", "foo", "", null, null)));
+		this.request.setServletPath("/foo/1/bar");
+		this.mapping.setDirty(true);
+		HandlerExecutionChain chain = this.mapping.getHandler(this.request);
+		for (HandlerInterceptor interceptor : chain.getInterceptors()) {
+			interceptor.preHandle(this.request, new MockHttpServletResponse(),
+					chain.getHandler());
+		}
+		assertEquals("/foo/{id}/**", this.request
+				.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+		assertEquals("bar", this.request
+				.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE));
+		@SuppressWarnings("unchecked")
+		Map<String, String> variables = (Map<String, String>) this.request
+				.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		assertEquals("1", variables.get("id"));
+	}
+
+	@Test
+	public void routesRegisteredWithSuperclass() throws Exception {
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("foo", "/foo/**", "foo", "", null, null)));
+		this.mapping.setDirty(true);
+		assertTrue(this.mapping.getHandlerMap().containsKey("/foo/**"));
+	}
+
+	@Test
+	public void trailingSlashMatch() throws Exception {
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("foo", "/foo", "foo", "", null, null)));
+		this.request.setServletPath("/foo/");
+		this.mapping.setDirty(true);
+		assertNull(this.mapping.getHandler(this.request));
+		this.mapping.setUseTrailingSlashMatch(true);
+		assertNotNull(this.mapping.getHandler(this.request));
+	}
+
+	@Test
+	public void refreshedInTheBackground() throws Exception {
+		final List<Runnable> refreshes = new ArrayList<>();
+		this.mapping.setRefreshExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				refreshes.add(command);
+			}
+		});
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("foo", "/foo/**", "foo", "", null, null)));
+		this.request.setServletPath("/bar/");
+		assertNull(this.mapping.getHandler(this.request));
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("bar", "/bar/**", "bar", "", null, null)));
+		this.mapping.setDirty(true);
+		this.mapping.setDirty(true);
+		// served from the previous table, and the refreshes are coalesced
+		assertNull(this.mapping.getHandler(this.request));
+		assertEquals(1, refreshes.size());
+		refreshes.get(0).run();
+		assertNotNull(this.mapping.getHandler(this.request));
+	}
+
+	@Test
+	public void removedPath() throws Exception {
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("foo", "/foo/**", "foo", "", null, null)));
+		this.request.setServletPath("/foo/");
+		this.mapping.setDirty(true);
+		assertNotNull(this.mapping.getHandler(this.request));
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("bar", "/bar/**", "bar", "", null, null)));
+		this.mapping.setDirty(true);
+		assertNull(this.mapping.getHandler(this.request));
+	}
+
+	@Test
+	public void ignoredPath() throws Exception {
+		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
+				.singletonList(new Route("default", "/**", "foo", "", null, null)));
+		Mockito.when(this.locator.getIgnoredPaths())
+				.thenReturn(Collections.singletonList("/admin/*"));
+		this.request.setServletPath("/admin/env");
+		this.mapping.setDirty(true);
+		assertNull(this.mapping.getHandler(this.request));
+	}
+
 	@Test
 	public void errorPath() throws Exception {
 		Mockito.when(this.locator.getRoutes()).thenReturn(Collections
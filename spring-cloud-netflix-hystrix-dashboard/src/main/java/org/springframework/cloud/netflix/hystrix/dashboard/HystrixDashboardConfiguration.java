@@ -43,6 +43,7 @@ import org.springframework.boot.autoconfigure.freemarker.FreeMarkerAutoConfigura
 import org.springframework.boot.context.embedded.ServletRegistrationBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.actuator.HasFeatures;
+import org.springframework.cloud.netflix.httpclient.ConnectionEvictor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -65,6 +66,9 @@ public class HystrixDashboardConfiguration {
 	@Autowired
 	private HystrixDashboardProperties dashboardProperties;
 
+	@Autowired(required = false)
+	private ConnectionEvictor connectionEvictor;
+
 	@Bean
 	public HasFeatures hystrixDashboardFeature() {
 		return HasFeatures.namedFeature("Hystrix Dashboard", HystrixDashboardConfiguration.class);
@@ -91,6 +95,9 @@ public class HystrixDashboardConfiguration {
 		ProxyStreamServlet proxyStreamServlet = new ProxyStreamServlet();
 		proxyStreamServlet.setEnableIgnoreConnectionCloseHeader(dashboardProperties
 				.isEnableIgnoreConnectionCloseHeader());
+		if (this.connectionEvictor != null) {
+			proxyStreamServlet.setConnectionEvictor(this.connectionEvictor);
+		}
 		return new ServletRegistrationBean(proxyStreamServlet, "/proxy.stream");
 	}
 
@@ -122,6 +129,15 @@ public class HystrixDashboardConfiguration {
 			super();
 		}
 
+		/**
+		 * Register the connection pool of the proxy with the evictor, so that expired
+		 * and idle connections are closed.
+		 */
+		public void setConnectionEvictor(ConnectionEvictor connectionEvictor) {
+			connectionEvictor.register("hystrix.dashboard.proxy",
+					ProxyConnectionManager.threadSafeConnectionManager);
+		}
+
 		/**
 		 * @see javax.servlet.http.HttpServlet#doGet(javax.servlet.http.HttpServletRequest
 		 * request, javax.servlet.http.HttpServletResponse response)